@@ -0,0 +1,142 @@
+package com.wiggins.progresswheel.widget;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+
+/**
+ * @Description 进程是否在前台：所有界面都不可见时（onTrimMemory收到TRIM_MEMORY_UI_HIDDEN）进入后台，
+ * 任意Activity onStart时回到前台。第一次调用register之前以及无法注册时都认为在前台（只能在主线程调用）
+ * @Author 一花一世界
+ */
+public final class AppVisibility {
+
+    public interface OnAppVisibilityChangeListener {
+        /**
+         * 在主线程中回调
+         *
+         * @param foreground 进程是否在前台
+         */
+        void onAppVisibilityChanged(boolean foreground);
+    }
+
+    private static final OnAppVisibilityChangeListener[] NO_LISTENERS = new OnAppVisibilityChangeListener[0];
+
+    private static boolean sRegistered = false;
+    private static boolean sForeground = true;
+    // 监听器，修改时复制
+    private static OnAppVisibilityChangeListener[] sListeners = NO_LISTENERS;
+
+    private static final Callbacks sCallbacks = new Callbacks();
+
+    private AppVisibility() {
+    }
+
+    /**
+     * 开始跟踪进程的前后台状态，重复调用时忽略
+     */
+    public static void register(Context context) {
+        if (sRegistered || context == null) {
+            return;
+        }
+        Context applicationContext = context.getApplicationContext();
+        if (!(applicationContext instanceof Application)) {
+            return;
+        }
+        Application application = (Application) applicationContext;
+        application.registerActivityLifecycleCallbacks(sCallbacks);
+        application.registerComponentCallbacks(sCallbacks);
+        sRegistered = true;
+    }
+
+    public static boolean isForeground() {
+        return sForeground;
+    }
+
+    public static void addListener(OnAppVisibilityChangeListener listener) {
+        OnAppVisibilityChangeListener[] listeners = new OnAppVisibilityChangeListener[sListeners.length + 1];
+        System.arraycopy(sListeners, 0, listeners, 0, sListeners.length);
+        listeners[sListeners.length] = listener;
+        sListeners = listeners;
+    }
+
+    public static void removeListener(OnAppVisibilityChangeListener listener) {
+        for (int i = 0; i < sListeners.length; i++) {
+            if (sListeners[i] == listener) {
+                OnAppVisibilityChangeListener[] listeners = sListeners.length == 1
+                        ? NO_LISTENERS : new OnAppVisibilityChangeListener[sListeners.length - 1];
+                System.arraycopy(sListeners, 0, listeners, 0, i);
+                System.arraycopy(sListeners, i + 1, listeners, i, sListeners.length - i - 1);
+                sListeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 修改前后台状态并通知监听器，没有变化时不回调
+     */
+    static void setForeground(boolean foreground) {
+        if (sForeground == foreground) {
+            return;
+        }
+        sForeground = foreground;
+        OnAppVisibilityChangeListener[] listeners = sListeners;
+        for (OnAppVisibilityChangeListener listener : listeners) {
+            listener.onAppVisibilityChanged(foreground);
+        }
+    }
+
+    /**
+     * 不用计数已启动的Activity：注册晚于第一个Activity启动时计数会出错，而UI_HIDDEN由系统在所有界面都隐藏后发出
+     */
+    private static class Callbacks implements Application.ActivityLifecycleCallbacks, ComponentCallbacks2 {
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+            setForeground(true);
+        }
+
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                setForeground(false);
+            }
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.wiggins.progresswheel.widget;
+
+import android.graphics.RectF;
+
+/**
+ * @Description 圆弧相关的计算，用于局部刷新
+ * @Author 一花一世界
+ */
+final class ArcUtils {
+
+    private ArcUtils() {
+    }
+
+    /**
+     * 把oval上从startAngle顺时针到endAngle这段圆弧的外接矩形合并到dst中
+     *
+     * @param inset 向外扩展的距离，一般为画笔宽度（包括抗锯齿的余量）
+     */
+    static void unionArcBounds(RectF dst, RectF oval, float startAngle, float endAngle, float inset) {
+        float centerX = oval.centerX();
+        float centerY = oval.centerY();
+        float radius = oval.width() / 2;
+
+        float left;
+        float top;
+        float right;
+        float bottom;
+        if (endAngle - startAngle >= 360) {
+            left = centerX - radius;
+            top = centerY - radius;
+            right = centerX + radius;
+            bottom = centerY + radius;
+        } else {
+            double start = Math.toRadians(startAngle);
+            double end = Math.toRadians(endAngle);
+            float startX = centerX + radius * (float) Math.cos(start);
+            float startY = centerY + radius * (float) Math.sin(start);
+            float endX = centerX + radius * (float) Math.cos(end);
+            float endY = centerY + radius * (float) Math.sin(end);
+            left = Math.min(startX, endX);
+            top = Math.min(startY, endY);
+            right = Math.max(startX, endX);
+            bottom = Math.max(startY, endY);
+
+            // 圆弧经过坐标轴时，极值点在轴上
+            if (containsAngle(startAngle, endAngle, 0)) {
+                right = centerX + radius;
+            }
+            if (containsAngle(startAngle, endAngle, 90)) {
+                bottom = centerY + radius;
+            }
+            if (containsAngle(startAngle, endAngle, 180)) {
+                left = centerX - radius;
+            }
+            if (containsAngle(startAngle, endAngle, 270)) {
+                top = centerY - radius;
+            }
+        }
+
+        dst.union(left - inset, top - inset, right + inset, bottom + inset);
+    }
+
+    /**
+     * 判断从startAngle顺时针到endAngle的圆弧是否经过angle
+     */
+    static boolean containsAngle(float startAngle, float endAngle, float angle) {
+        float offset = (angle - startAngle) % 360;
+        if (offset < 0) {
+            offset += 360;
+        }
+        return offset <= endAngle - startAngle;
+    }
+}
@@ -0,0 +1,42 @@
+package com.wiggins.progresswheel.widget;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Description 有上限的LRU缓存，超过上限时移除最久没有使用的对象，命中时不创建任何对象（只能在主线程使用）
+ * @Author 一花一世界
+ */
+final class BoundedCache<K, V> {
+
+    private final Map<K, V> mMap;
+
+    BoundedCache(final int maxSize) {
+        mMap = new LinkedHashMap<K, V>(Math.min(maxSize, 64), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 查找并标记为最近使用
+     *
+     * @return 没有缓存时返回null
+     */
+    V get(K key) {
+        return mMap.get(key);
+    }
+
+    /**
+     * 放入缓存，键放入后不能再修改
+     */
+    void put(K key, V value) {
+        mMap.put(key, value);
+    }
+
+    int size() {
+        return mMap.size();
+    }
+}
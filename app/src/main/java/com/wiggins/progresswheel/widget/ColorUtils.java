@@ -0,0 +1,30 @@
+package com.wiggins.progresswheel.widget;
+
+/**
+ * @Description 颜色计算，只使用基本类型，不创建对象
+ * @Author 一花一世界
+ */
+public final class ColorUtils {
+
+    private ColorUtils() {
+    }
+
+    /**
+     * 按ARGB四个通道分别线性混合两个颜色
+     *
+     * @param fraction 0为from，1为to，超出范围时取边界值
+     */
+    public static int blend(int from, int to, float fraction) {
+        if (from == to || fraction <= 0) {
+            return from;
+        }
+        if (fraction >= 1) {
+            return to;
+        }
+        int a = (from >>> 24) + (int) (((to >>> 24) - (from >>> 24)) * fraction);
+        int r = ((from >> 16) & 0xFF) + (int) ((((to >> 16) & 0xFF) - ((from >> 16) & 0xFF)) * fraction);
+        int g = ((from >> 8) & 0xFF) + (int) ((((to >> 8) & 0xFF) - ((from >> 8) & 0xFF)) * fraction);
+        int b = (from & 0xFF) + (int) (((to & 0xFF) - (from & 0xFF)) * fraction);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
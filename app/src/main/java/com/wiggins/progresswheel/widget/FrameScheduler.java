@@ -0,0 +1,129 @@
+package com.wiggins.progresswheel.widget;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Description 帧回调调度器：任意线程可请求下一帧回调，多次请求在同一帧内只回调一次
+ * API 16及以上使用Choreographer，以下使用Handler按16ms间隔模拟
+ * @Author 一花一世界
+ */
+public class FrameScheduler {
+
+    private static final long FRAME_DELAY = 16;
+
+    public interface Callback {
+        /**
+         * 在主线程中回调
+         *
+         * @param frameTimeNanos 当前帧的时间（纳秒）
+         */
+        void onFrame(long frameTimeNanos);
+    }
+
+    private final Callback mCallback;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean mScheduled = new AtomicBoolean(false);
+    private FrameCallbackCompat mFrameCallback;
+
+    // 在主线程中真正注册回调
+    private final Runnable mPostRunnable = new Runnable() {
+        @Override
+        public void run() {
+            postFrame();
+        }
+    };
+
+    // API 16以下的回调
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatchFrame(System.nanoTime());
+        }
+    };
+
+    public FrameScheduler(Callback callback) {
+        this.mCallback = callback;
+    }
+
+    /**
+     * 请求下一帧回调，可以在任意线程调用
+     */
+    public void schedule() {
+        if (!mScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrame();
+        } else {
+            mHandler.post(mPostRunnable);
+        }
+    }
+
+    /**
+     * 取消尚未执行的回调，需要在主线程调用
+     */
+    public void cancel() {
+        mHandler.removeCallbacks(mPostRunnable);
+        mHandler.removeCallbacks(mFrameRunnable);
+        if (mFrameCallback != null) {
+            mFrameCallback.remove();
+        }
+        mScheduled.set(false);
+    }
+
+    /**
+     * 是否有尚未执行的回调
+     */
+    public boolean isScheduled() {
+        return mScheduled.get();
+    }
+
+    private void postFrame() {
+        if (!mScheduled.get()) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameCallback == null) {
+                mFrameCallback = new FrameCallbackCompat(this);
+            }
+            mFrameCallback.post();
+        } else {
+            mHandler.postDelayed(mFrameRunnable, FRAME_DELAY);
+        }
+    }
+
+    private void dispatchFrame(long frameTimeNanos) {
+        // 先清除标记再回调，回调过程中或之后的请求都会注册新的一帧
+        mScheduled.set(false);
+        mCallback.onFrame(frameTimeNanos);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameCallbackCompat implements Choreographer.FrameCallback {
+
+        private final FrameScheduler mScheduler;
+
+        FrameCallbackCompat(FrameScheduler scheduler) {
+            this.mScheduler = scheduler;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void remove() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mScheduler.dispatchFrame(frameTimeNanos);
+        }
+    }
+}
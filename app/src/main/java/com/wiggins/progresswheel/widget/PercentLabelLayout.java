@@ -0,0 +1,60 @@
+package com.wiggins.progresswheel.widget;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+/**
+ * @Description 居中显示的百分比文字及其位置，只在百分比、字体大小、字体或View尺寸变化时重新计算
+ * @Author 一花一世界
+ */
+final class PercentLabelLayout {
+
+    private final PercentLabels mPercentLabels = new PercentLabels();
+
+    // 上次计算时的条件
+    private int mPercent = Integer.MIN_VALUE;
+    private float mTextSize = -1;
+    private Typeface mTypeface;
+    private int mWidth = -1;
+    private int mHeight = -1;
+    // 基线相对于垂直中心的偏移量
+    private float mBaselineOffset;
+
+    // 计算结果
+    String label;
+    int x;
+    int y;
+
+    /**
+     * 按当前的百分比、画笔和View尺寸更新文字和位置，条件都没有变化时直接返回
+     */
+    void update(Paint paint, int percent, int width, int height) {
+        boolean metricsChanged = paint.getTextSize() != mTextSize || paint.getTypeface() != mTypeface;
+        if (metricsChanged) {
+            mTextSize = paint.getTextSize();
+            mTypeface = paint.getTypeface();
+            mPercentLabels.measure(paint);
+            mBaselineOffset = -(paint.descent() + paint.ascent()) / 2;
+        }
+        if (!metricsChanged && percent == mPercent && width == mWidth && height == mHeight) {
+            return;
+        }
+        mPercent = percent;
+        mWidth = width;
+        mHeight = height;
+
+        float textWidth;
+        if (percent >= 0 && percent <= PercentLabels.MAX_PERCENT) {
+            label = PercentLabels.label(percent);
+            textWidth = mPercentLabels.width(percent);
+        } else {
+            // 超出范围的情况很少，百分比变化时才创建一次
+            label = percent + "%";
+            textWidth = paint.measureText(label);
+        }
+        // 绘制的起点X轴坐标：宽度的一半 - 文字宽度的一半
+        x = (int) (width / 2 - textWidth / 2);
+        // 绘制的起点Y轴坐标：高度的一半 - 文字总高度的一半
+        y = (int) (height / 2 + mBaselineOffset);
+    }
+}
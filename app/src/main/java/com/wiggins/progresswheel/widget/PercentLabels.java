@@ -0,0 +1,57 @@
+package com.wiggins.progresswheel.widget;
+
+import android.graphics.Paint;
+
+/**
+ * @Description 0%~100%的百分比文字表（文字只创建一次，宽度在画笔变化时测量一次）
+ * @Author 一花一世界
+ */
+public class PercentLabels {
+
+    public static final int MAX_PERCENT = 100;
+
+    // 所有进度条共用的百分比文字
+    private static final String[] LABELS = new String[MAX_PERCENT + 1];
+
+    static {
+        for (int i = 0; i <= MAX_PERCENT; i++) {
+            LABELS[i] = i + "%";
+        }
+    }
+
+    // 每个百分比文字在当前画笔下的宽度
+    private final float[] mWidths = new float[MAX_PERCENT + 1];
+
+    /**
+     * @Description 获取百分比对应的文字，超出范围时取边界值
+     */
+    public static String label(int percent) {
+        return LABELS[clamp(percent)];
+    }
+
+    /**
+     * @Description 使用给定画笔测量全部文字的宽度，画笔的字体大小或字体变化后需要重新调用
+     */
+    public void measure(Paint paint) {
+        for (int i = 0; i <= MAX_PERCENT; i++) {
+            mWidths[i] = paint.measureText(LABELS[i]);
+        }
+    }
+
+    /**
+     * @Description 获取百分比文字的宽度
+     */
+    public float width(int percent) {
+        return mWidths[clamp(percent)];
+    }
+
+    private static int clamp(int percent) {
+        if (percent < 0) {
+            return 0;
+        }
+        if (percent > MAX_PERCENT) {
+            return MAX_PERCENT;
+        }
+        return percent;
+    }
+}
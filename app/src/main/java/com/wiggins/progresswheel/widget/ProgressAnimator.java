@@ -0,0 +1,164 @@
+package com.wiggins.progresswheel.widget;
+
+import android.animation.TimeInterpolator;
+import android.view.animation.DecelerateInterpolator;
+
+/**
+ * @Description 可中途改变目标值的进度动画，由调用方在每帧传入时间驱动，本身不注册任何回调也不创建对象
+ * 改变目标值时保留当前速度，使进度平滑地转向新的目标
+ * @Author 一花一世界
+ */
+public class ProgressAnimator {
+
+    private static final long DEFAULT_DURATION = 300;
+    private static final float SLOPE_STEP = 0.001f;
+    private static final float NANOS_PER_MILLI = 1000000f;
+
+    // 插值器
+    private TimeInterpolator mInterpolator = new DecelerateInterpolator();
+    // 动画时长（毫秒）
+    private long mDuration = DEFAULT_DURATION;
+
+    // 当前值
+    private float mValue;
+    // 是否正在执行
+    private boolean mRunning;
+    // 本段动画的起点、终点和开始时间（纳秒）
+    private float mStartValue;
+    private float mEndValue;
+    private long mStartTime;
+    // 为了保持起始速度叠加的修正量（单位/毫秒）
+    private float mVelocityCorrection;
+
+    /**
+     * 立即跳到给定的值并停止动画
+     */
+    public void setValue(float value) {
+        mValue = value;
+        mEndValue = value;
+        mRunning = false;
+    }
+
+    /**
+     * 从当前值开始动画到目标值，正在执行时直接改变目标并保留当前速度
+     *
+     * @param target         目标值
+     * @param frameTimeNanos 当前帧的时间（纳秒）
+     */
+    public void animateTo(float target, long frameTimeNanos) {
+        if (mDuration <= 0) {
+            setValue(target);
+            return;
+        }
+        if (mRunning) {
+            if (target == mEndValue) {
+                return;
+            }
+            float fraction = fractionAt(frameTimeNanos);
+            float velocity = velocityAt(fraction);
+            mValue = valueAt(fraction);
+            mStartValue = mValue;
+            mEndValue = target;
+            // 插值曲线本身在起点有速度，叠加修正量使起点速度等于当前速度
+            mVelocityCorrection = velocity - (target - mStartValue) * easeSlope() / mDuration;
+        } else {
+            if (target == mValue) {
+                return;
+            }
+            mStartValue = mValue;
+            mEndValue = target;
+            mVelocityCorrection = 0;
+        }
+        mStartTime = frameTimeNanos;
+        mRunning = true;
+    }
+
+    /**
+     * 按当前帧的时间计算动画的值
+     *
+     * @return 动画是否还在执行
+     */
+    public boolean update(long frameTimeNanos) {
+        if (!mRunning) {
+            return false;
+        }
+        float fraction = fractionAt(frameTimeNanos);
+        if (fraction >= 1) {
+            setValue(mEndValue);
+            return false;
+        }
+        mValue = valueAt(fraction);
+        return true;
+    }
+
+    /**
+     * 立即结束动画，值停在目标值上
+     */
+    public void end() {
+        setValue(mEndValue);
+    }
+
+    public float getValue() {
+        return mValue;
+    }
+
+    public float getTargetValue() {
+        return mEndValue;
+    }
+
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    public void setDuration(long duration) {
+        this.mDuration = duration;
+    }
+
+    public TimeInterpolator getInterpolator() {
+        return mInterpolator;
+    }
+
+    public void setInterpolator(TimeInterpolator interpolator) {
+        this.mInterpolator = interpolator;
+    }
+
+    private float fractionAt(long frameTimeNanos) {
+        float elapsed = (frameTimeNanos - mStartTime) / NANOS_PER_MILLI;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return Math.min(1, elapsed / mDuration);
+    }
+
+    /**
+     * 插值结果加上一条首尾为0、起点斜率为1的三次Hermite曲线，用来在改变目标时保持速度连续
+     */
+    private float valueAt(float fraction) {
+        float hermite = fraction * (fraction - 1) * (fraction - 1);
+        return mStartValue
+                + (mEndValue - mStartValue) * mInterpolator.getInterpolation(fraction)
+                + mVelocityCorrection * mDuration * hermite;
+    }
+
+    /**
+     * 当前速度（单位/毫秒）
+     */
+    private float velocityAt(float fraction) {
+        if (fraction >= 1) {
+            return 0;
+        }
+        float next = Math.min(1, fraction + SLOPE_STEP);
+        return (valueAt(next) - valueAt(fraction)) / ((next - fraction) * mDuration);
+    }
+
+    /**
+     * 插值器在起点的斜率
+     */
+    private float easeSlope() {
+        return (mInterpolator.getInterpolation(SLOPE_STEP) - mInterpolator.getInterpolation(0)) / SLOPE_STEP;
+    }
+}
@@ -0,0 +1,73 @@
+package com.wiggins.progresswheel.widget;
+
+/**
+ * @Description 由进度和最大进度算出的比例、百分比和整数角度，条件没有变化时不重新计算（只能在一个线程中使用）
+ * 用double计算，进度超过int范围也不会溢出；百分比和角度都向下取整，只有完成时才是100%和360度
+ * @Author 一花一世界
+ */
+final class ProgressFraction {
+
+    // 上次计算时的进度和最大进度，-1表示还没有计算过
+    private long mProgress = -1;
+    private long mMax = -1;
+    private float mFraction;
+    private int mPercent;
+    private int mDegree;
+
+    /**
+     * 按新的进度重新计算，进度超过最大值时按最大值计算
+     *
+     * @return 与上次计算时相比是否有变化
+     */
+    boolean update(long progress, long max) {
+        max = Math.max(0, max);
+        progress = Math.max(0, Math.min(progress, max));
+        if (progress == mProgress && max == mMax) {
+            return false;
+        }
+        mProgress = progress;
+        mMax = max;
+        if (max > 0) {
+            mFraction = (float) ((double) progress / max);
+            mPercent = (int) (100.0 * progress / max);
+            mDegree = (int) (360.0 * progress / max);
+        } else {
+            mFraction = 0;
+            mPercent = 0;
+            mDegree = 0;
+        }
+        return true;
+    }
+
+    /**
+     * 上次计算时的进度（不超过最大值）
+     */
+    long getProgress() {
+        return Math.max(0, mProgress);
+    }
+
+    long getMax() {
+        return Math.max(0, mMax);
+    }
+
+    /**
+     * 比例（0~1）
+     */
+    float getFraction() {
+        return mFraction;
+    }
+
+    /**
+     * 百分比（0~100）
+     */
+    int getPercent() {
+        return mPercent;
+    }
+
+    /**
+     * 整数角度（0~360）
+     */
+    int getDegree() {
+        return mDegree;
+    }
+}
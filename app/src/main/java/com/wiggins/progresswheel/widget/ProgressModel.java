@@ -0,0 +1,167 @@
+package com.wiggins.progresswheel.widget;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description 可以被多个进度条共用的进度数据：任意线程不加锁地写入，监听器在主线程中每帧最多回调一次，
+ * 比例和百分比每帧只计算一次，所有绑定的进度条共用
+ * @Author 一花一世界
+ */
+public class ProgressModel {
+
+    public interface OnProgressChangeListener {
+        /**
+         * 在主线程中回调，同一帧内的多次修改只回调一次
+         */
+        void onProgressChanged(ProgressModel model);
+    }
+
+    private static final OnProgressChangeListener[] NO_LISTENERS = new OnProgressChangeListener[0];
+
+    private final AtomicLong mProgress = new AtomicLong(0);
+    private final AtomicLong mMax = new AtomicLong(0);
+
+    // 以下只在主线程中使用：监听器（修改时复制）以及上次回调时计算的结果
+    private OnProgressChangeListener[] mListeners = NO_LISTENERS;
+    private final ProgressFraction mDispatched = new ProgressFraction();
+
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(new FrameScheduler.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            if (refresh()) {
+                OnProgressChangeListener[] listeners = mListeners;
+                for (OnProgressChangeListener listener : listeners) {
+                    listener.onProgressChanged(ProgressModel.this);
+                }
+            }
+        }
+    });
+
+    public ProgressModel() {
+        this(100);
+    }
+
+    public ProgressModel(long max) {
+        setMax(max);
+    }
+
+    /**
+     * 设置当前进度，超过最大值时按最大值计算（可以在任意线程调用）
+     */
+    public void setProgress(long progress) {
+        if (progress < 0) {
+            throw new IllegalArgumentException("progress not less than 0");
+        }
+        mProgress.set(progress);
+        mFrameScheduler.schedule();
+    }
+
+    /**
+     * 增加当前进度，例如每收到一块数据时调用（可以在任意线程调用）
+     */
+    public void addProgress(long delta) {
+        long current;
+        long next;
+        do {
+            current = mProgress.get();
+            next = Math.max(0, current + delta);
+        } while (!mProgress.compareAndSet(current, next));
+        mFrameScheduler.schedule();
+    }
+
+    /**
+     * 设置最大进度（可以在任意线程调用）
+     */
+    public void setMax(long max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("max not less than 0");
+        }
+        mMax.set(max);
+        mFrameScheduler.schedule();
+    }
+
+    /**
+     * 最近一次写入的进度，可能超过最大值（可以在任意线程调用）
+     */
+    public long getProgress() {
+        return mProgress.get();
+    }
+
+    /**
+     * 最近一次写入的最大进度（可以在任意线程调用）
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * 上次回调时的进度（不超过最大值），只能在主线程调用
+     */
+    public long getDispatchedProgress() {
+        return mDispatched.getProgress();
+    }
+
+    /**
+     * 上次回调时的最大进度，只能在主线程调用
+     */
+    public long getDispatchedMax() {
+        return mDispatched.getMax();
+    }
+
+    /**
+     * 上次回调时进度的比例（0~1），只能在主线程调用
+     */
+    public float getFraction() {
+        return mDispatched.getFraction();
+    }
+
+    /**
+     * 上次回调时进度的百分比（0~100，向下取整，只有完成时才是100），只能在主线程调用
+     * 绑定的进度条都直接显示这个值，不再各自计算
+     */
+    public int getPercent() {
+        return mDispatched.getPercent();
+    }
+
+    /**
+     * 上次回调时的百分比文字，取自共用的文字表，只能在主线程调用
+     */
+    public String getLabel() {
+        return PercentLabels.label(getPercent());
+    }
+
+    /**
+     * 添加监听器，只能在主线程调用
+     */
+    public void addListener(OnProgressChangeListener listener) {
+        OnProgressChangeListener[] listeners = new OnProgressChangeListener[mListeners.length + 1];
+        System.arraycopy(mListeners, 0, listeners, 0, mListeners.length);
+        listeners[mListeners.length] = listener;
+        mListeners = listeners;
+    }
+
+    /**
+     * 移除监听器，只能在主线程调用
+     */
+    public void removeListener(OnProgressChangeListener listener) {
+        for (int i = 0; i < mListeners.length; i++) {
+            if (mListeners[i] == listener) {
+                OnProgressChangeListener[] listeners = mListeners.length == 1
+                        ? NO_LISTENERS : new OnProgressChangeListener[mListeners.length - 1];
+                System.arraycopy(mListeners, 0, listeners, 0, i);
+                System.arraycopy(mListeners, i + 1, listeners, i, mListeners.length - i - 1);
+                mListeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 读取最新的进度并重新计算比例和百分比
+     *
+     * @return 与上次计算时相比是否有变化
+     */
+    private boolean refresh() {
+        return mDispatched.update(mProgress.get(), mMax.get());
+    }
+}
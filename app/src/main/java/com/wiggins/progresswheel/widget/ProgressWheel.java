@@ -1,17 +1,23 @@
 package com.wiggins.progresswheel.widget;
 
+import android.animation.TimeInterpolator;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Paint.Style;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Shader;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.View;
 
 import com.wiggins.progresswheel.R;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @Description 进度条
  * @Author 一花一世界
@@ -24,6 +30,7 @@ public class ProgressWheel extends View {
     private int barWidth = 20;//进度条宽度
     private int rimWidth = 20;//默认轮廓宽度
     private int defaultProgress = 0;//默认进度
+    private float spinSpeed = 230;//不确定模式下的旋转速度（度/秒）
     private float textSize = dip2px(15);//字体大小
     private float outerEdgeSize = 0;//外边缘大小
     private float innerEdgeSize = 0;//内边缘大小
@@ -42,24 +49,70 @@ public class ProgressWheel extends View {
     private int outerEdgeColor = 0x00000000;//外边缘
     private int innerEdgeColor = 0x00000000;//内边缘
 
-    //绘制要用的画笔
-    private Paint barPaint = new Paint();//进度条
-    private Paint rimPaint = new Paint();//默认轮廓
-    private Paint textPaint = new Paint();//字体
-    private Paint circleInnerPaint = new Paint();//圈内
-    private Paint outerEdgePaint = new Paint();//外边缘
-    private Paint innerEdgePaint = new Paint();//内边缘
+    private Shader rimShader;//轮廓的着色器
+
+    //绘制要用的矩形和画笔，属性相同的进度条共用同一份
+    private final ProgressWheelStyle.Key styleKey = new ProgressWheelStyle.Key();
+    private ProgressWheelStyle style;
+    //圈内、轮廓和边缘，附加到窗口时与属性相同的进度条共用背景层，离开窗口时释放
+    private final ProgressWheelBackground.Key backgroundKey = new ProgressWheelBackground.Key();
+    private ProgressWheelBackground background;
+    private boolean backgroundAcquired = false;
+    private boolean styleDirty = false;//属性变化后在下一次绘制前统一重新计算
 
-    //绘制要用的矩形
-    private RectF outerEdgeContour = new RectF();//外边缘
-    private RectF innerEdgeContour = new RectF();//内边缘
-    private RectF innerEdgeBounds = new RectF();//内圈边界
-    private RectF outerEdgeBounds = new RectF();//外圈边界
+    //局部刷新区域
+    private final RectF dirtyBounds = new RectF();
+    private final Rect dirtyRect = new Rect();
+    private boolean styleChanged = false;//进度条或文字样式变化后需要整体重绘
 
     //其他
-    private String text = "";
     private float progress = 0;
-    private String[] splitText = {};
+    private final WheelLabel label = new WheelLabel();//中间的文字和每行的偏移量
+
+    //跨线程的进度通道：任意线程写入最新进度，主线程每帧最多读取并应用一次
+    private final AtomicInteger targetProgress = new AtomicInteger(0);
+    private final AtomicBoolean progressChanged = new AtomicBoolean(false);
+    private final AtomicLong updateCount = new AtomicLong(0);//收到的进度更新次数
+    private volatile long frameCount = 0;//实际绘制的帧数
+    private volatile boolean animateRequested = false;//最近一次设置进度时是否需要动画
+    private final ProgressAnimator progressAnimator = new ProgressAnimator();
+    private float drawnProgress = 0;//上次绘制时的进度
+    //绑定的共用进度数据，附加到窗口时才注册监听
+    private ProgressModel progressModel;
+    private final ProgressModel.OnProgressChangeListener modelListener = new ProgressModel.OnProgressChangeListener() {
+        @Override
+        public void onProgressChanged(ProgressModel model) {
+            applyModelProgress(model);
+        }
+    };
+    private final FrameScheduler frameScheduler = new FrameScheduler(new FrameScheduler.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            boolean changed = updateProgress(frameTimeNanos);
+            if (spinning) {
+                updateSpin(SystemClock.uptimeMillis());
+                unionArcBounds(0, 360);
+                frameScheduler.schedule();
+                changed = true;
+            }
+            if (changed) {
+                invalidateDirty();
+            }
+        }
+    });
+
+    //不确定模式：旋转并伸缩的圆弧，角度按经过的时间计算，与刷新率无关
+    private static final int SPIN_CYCLE_TIME = 460;//伸或缩一次的时间（毫秒）
+    private static final float SPIN_MIN_SWEEP = 16;
+    private static final float SPIN_MAX_SWEEP = 270;
+    private boolean indeterminate = false;
+    private boolean spinning = false;//帧回调是否在驱动旋转
+    private boolean attached = false;
+    private float spinRotation = 0;
+    private float spinSweep = SPIN_MIN_SWEEP;
+    private boolean spinGrowing = true;
+    private long spinCycleTime = 0;
+    private long lastSpinTime = 0;
 
     /**
      * ProgressWheel的构造方法
@@ -70,6 +123,7 @@ public class ProgressWheel extends View {
     public ProgressWheel(Context context, AttributeSet attrs) {
         super(context, attrs);
         parseAttributes(context.obtainStyledAttributes(attrs, R.styleable.ProgressWheel));
+        updateStyle();
     }
 
     /********************* 初始化一些元素 *********************/
@@ -124,12 +178,57 @@ public class ProgressWheel extends View {
         layoutWidth = newWidth;
         layoutHeight = newHeight;
         setupBounds();
-        setupPaints();
+        styleDirty = true;
         invalidate();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        attached = true;
+        updateBackground();
+        updateSpinning();
+        if (progressModel != null) {
+            progressModel.addListener(modelListener);
+            applyModelProgress(progressModel);
+        }
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateSpinning();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateSpinning();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        attached = false;
+        spinning = false;
+        frameScheduler.cancel();
+        //释放共用的背景层，没有其他进度条使用时回收位图
+        if (backgroundAcquired) {
+            backgroundAcquired = false;
+            background.release();
+        }
+        if (progressModel != null) {
+            progressModel.removeListener(modelListener);
+        }
+        //不可见时没有必要继续动画，直接停在目标值上
+        if (progressAnimator.isRunning()) {
+            progressAnimator.end();
+            progressChanged.set(true);
+        }
+    }
+
     /**
-     * 设置元素边界
+     * 设置元素边界的间距，矩形本身由ProgressWheelStyle和ProgressWheelBackground创建
      */
     private void setupBounds() {
         // 为了保持宽度和长度的一致，我们要获得layout_width和layout_height中较小的一个，从而绘制一个圆
@@ -144,73 +243,79 @@ public class ProgressWheel extends View {
         paddingBottom = this.getPaddingBottom() + (yOffset / 2);
         paddingLeft = this.getPaddingLeft() + (xOffset / 2);
         paddingRight = this.getPaddingRight() + (xOffset / 2);
-
-        int width = getWidth();
-        int height = getHeight();
-
-        innerEdgeBounds = new RectF(
-                paddingLeft + (1.5f * barWidth),
-                paddingTop + (1.5f * barWidth),
-                width - paddingRight - (1.5f * barWidth),
-                height - paddingBottom - (1.5f * barWidth));
-
-        outerEdgeBounds = new RectF(
-                paddingLeft + barWidth,
-                paddingTop + barWidth,
-                width - paddingRight - barWidth,
-                height - paddingBottom - barWidth);
-
-        innerEdgeContour = new RectF(
-                outerEdgeBounds.left + (rimWidth / 2.0f) + (outerEdgeSize / 2.0f),
-                outerEdgeBounds.top + (rimWidth / 2.0f) + (outerEdgeSize / 2.0f),
-                outerEdgeBounds.right - (rimWidth / 2.0f) - (outerEdgeSize / 2.0f),
-                outerEdgeBounds.bottom - (rimWidth / 2.0f) - (outerEdgeSize / 2.0f));
-
-        outerEdgeContour = new RectF(
-                outerEdgeBounds.left - (rimWidth / 2.0f) - (innerEdgeSize / 2.0f),
-                outerEdgeBounds.top - (rimWidth / 2.0f) - (innerEdgeSize / 2.0f),
-                outerEdgeBounds.right + (rimWidth / 2.0f) + (innerEdgeSize / 2.0f),
-                outerEdgeBounds.bottom + (rimWidth / 2.0f) + (innerEdgeSize / 2.0f));
     }
 
     /**
-     * 绘制元素属性
+     * 标记属性已变化，多次修改只会在下一次绘制前重新计算一次矩形和画笔、刷新一次
      */
-    private void setupPaints() {
-        //进度条
-        barPaint.setColor(barColor);//设置画笔颜色
-        barPaint.setAntiAlias(true);//设置抗锯齿
-        barPaint.setStyle(Style.STROKE);//设置画笔为空心
-        barPaint.setStrokeWidth(barWidth);//设置线宽
-
-        //圆环
-        rimPaint.setColor(rimColor);
-        rimPaint.setAntiAlias(true);
-        rimPaint.setStyle(Style.STROKE);
-        rimPaint.setStrokeWidth(rimWidth);
-
-        //环内
-        circleInnerPaint.setColor(circleInnerColor);
-        circleInnerPaint.setAntiAlias(true);
-        circleInnerPaint.setStyle(Style.FILL);
+    private void markStyleDirty() {
+        styleDirty = true;
+        styleChanged = true;
+        invalidate();
+    }
 
-        //字体
-        textPaint.setColor(textColor);
-        textPaint.setStyle(Style.FILL);
-        textPaint.setAntiAlias(true);
-        textPaint.setTextSize(textSize);
+    /**
+     * 如果属性有变化，重新计算矩形和画笔
+     */
+    private void ensureStyle() {
+        if (styleDirty) {
+            styleDirty = false;
+            updateStyle();
+        }
+    }
 
-        //外边缘
-        outerEdgePaint.setColor(outerEdgeColor);
-        outerEdgePaint.setAntiAlias(true);
-        outerEdgePaint.setStyle(Style.STROKE);
-        outerEdgePaint.setStrokeWidth(outerEdgeSize);
+    /**
+     * 根据当前属性获取共用的矩形和画笔
+     */
+    private void updateStyle() {
+        styleKey.width = getWidth();
+        styleKey.height = getHeight();
+        styleKey.paddingLeft = paddingLeft;
+        styleKey.paddingTop = paddingTop;
+        styleKey.paddingRight = paddingRight;
+        styleKey.paddingBottom = paddingBottom;
+        styleKey.barWidth = barWidth;
+        styleKey.textSize = textSize;
+        styleKey.barColor = barColor;
+        styleKey.textColor = textColor;
+        style = ProgressWheelStyle.obtain(styleKey);
+        updateBackground();
+        measureLines();
+    }
 
-        //内边缘
-        innerEdgePaint.setColor(innerEdgeColor);
-        innerEdgePaint.setAntiAlias(true);
-        innerEdgePaint.setStyle(Style.STROKE);
-        innerEdgePaint.setStrokeWidth(innerEdgeSize);
+    /**
+     * 根据当前属性获取背景，附加到窗口时共用背景层，属性没有变化时仍是同一个对象，不会重新绘制
+     */
+    private void updateBackground() {
+        backgroundKey.width = getWidth();
+        backgroundKey.height = getHeight();
+        backgroundKey.paddingLeft = paddingLeft;
+        backgroundKey.paddingTop = paddingTop;
+        backgroundKey.paddingRight = paddingRight;
+        backgroundKey.paddingBottom = paddingBottom;
+        backgroundKey.barWidth = barWidth;
+        backgroundKey.rimWidth = rimWidth;
+        backgroundKey.outerEdgeSize = outerEdgeSize;
+        backgroundKey.innerEdgeSize = innerEdgeSize;
+        backgroundKey.rimColor = rimColor;
+        backgroundKey.circleInnerColor = circleInnerColor;
+        backgroundKey.outerEdgeColor = outerEdgeColor;
+        backgroundKey.innerEdgeColor = innerEdgeColor;
+        backgroundKey.rimShader = rimShader;
+
+        ProgressWheelBackground old = background;
+        boolean oldAcquired = backgroundAcquired;
+        //先获取新的再释放旧的，属性没有变化时背景层不会被回收
+        if (attached) {
+            background = ProgressWheelBackground.acquire(backgroundKey);
+            backgroundAcquired = true;
+        } else {
+            background = ProgressWheelBackground.unshared(backgroundKey);
+            backgroundAcquired = false;
+        }
+        if (oldAcquired) {
+            old.release();
+        }
     }
 
     /**
@@ -225,6 +330,8 @@ public class ProgressWheel extends View {
         barWidth = a.getInteger(R.styleable.ProgressWheel_pwBarWidth, barWidth);
         barColor = a.getColor(R.styleable.ProgressWheel_pwBarColor, barColor);
         defaultProgress = a.getInteger(R.styleable.ProgressWheel_pwDefaultProgress, defaultProgress);
+        spinSpeed = a.getFloat(R.styleable.ProgressWheel_pwSpinSpeed, spinSpeed);
+        indeterminate = a.getBoolean(R.styleable.ProgressWheel_pwIndeterminate, indeterminate);
 
         if (a.hasValue(R.styleable.ProgressWheel_pwText)) {
             setText(a.getString(R.styleable.ProgressWheel_pwText));
@@ -251,31 +358,213 @@ public class ProgressWheel extends View {
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        //绘制边界
-        canvas.drawArc(innerEdgeBounds, 360, 360, false, circleInnerPaint);
-        canvas.drawArc(outerEdgeBounds, 360, 360, false, rimPaint);
+        if (progressChanged.get()) {
+            updateProgress(System.nanoTime());
+        }
+        drawnProgress = progress;
+        frameCount++;
 
-        //绘制边缘
-        canvas.drawArc(outerEdgeContour, 360, 360, false, outerEdgePaint);
-        canvas.drawArc(innerEdgeContour, 360, 360, false, innerEdgePaint);
+        ensureStyle();
+        ProgressWheelStyle style = this.style;
 
-        //绘制进度
-        canvas.drawArc(outerEdgeBounds, -90, progress, false, barPaint);
+        //绘制静态背景层，无法缓存时直接绘制
+        Bitmap backgroundLayer = background.getLayer();
+        if (backgroundLayer != null) {
+            canvas.drawBitmap(backgroundLayer, 0, 0, null);
+        } else {
+            background.draw(canvas);
+        }
 
-        //绘制文字(并让它显示在圆水平和垂直方向的中心处)
-        float textHeight = textPaint.descent() - textPaint.ascent();
-        float verticalTextOffset = (textHeight / 2) - textPaint.descent();
+        //绘制进度
+        if (indeterminate) {
+            canvas.drawArc(style.outerEdgeBounds, spinRotation - 90, spinSweep, false, style.barPaint);
+        } else {
+            canvas.drawArc(style.outerEdgeBounds, -90, progress, false, style.barPaint);
+        }
 
-        for (String line : splitText) {
-            float horizontalTextOffset = textPaint.measureText(line) / 2;
+        //绘制文字(并让它显示在圆水平和垂直方向的中心处，偏移量已在setText或画笔变化时算好)
+        for (int i = 0; i < label.lineCount; i++) {
             canvas.drawText(
-                    line,
-                    this.getWidth() / 2 - horizontalTextOffset,
-                    this.getHeight() / 2 + verticalTextOffset,
-                    textPaint);
+                    label.lines[i],
+                    this.getWidth() / 2 - label.offsets[i],
+                    this.getHeight() / 2 + style.verticalTextOffset,
+                    style.textPaint);
+        }
+    }
+
+    /**
+     * 计算每行文字的水平偏移量
+     */
+    private void measureLines() {
+        if (style == null) {
+            return;
+        }
+        label.measure(style.percentLabels, style.textPaint);
+    }
+
+    /**
+     * 发布新的进度，可以在任意线程调用，同一帧内的多次发布只会应用最后一次
+     */
+    private void publishProgress() {
+        updateCount.incrementAndGet();
+        progressChanged.set(true);
+        frameScheduler.schedule();
+    }
+
+    /**
+     * 应用共用进度数据的最新进度，在主线程中调用，直接在当前帧刷新
+     */
+    private void applyModelProgress(ProgressModel model) {
+        //圆弧直接使用上次回调时的比例，不取整到整数角度
+        float degrees = model.getFraction() * 360;
+        int target = Math.round(degrees);
+        targetProgress.set(target);
+        // 已经直接应用了，不用在下一帧再应用一次；但其他线程可能同时发布了新的进度，取回标记后目标已被修改时重新标记
+        if (progressChanged.compareAndSet(true, false) && targetProgress.get() != target) {
+            progressChanged.set(true);
+            frameScheduler.schedule();
+        }
+        updateCount.incrementAndGet();
+        ensureStyle();
+        dirtyBounds.setEmpty();
+        progressAnimator.setValue(degrees);
+        if (showProgress(degrees)) {
+            invalidateDirty();
+        }
+    }
+
+    /**
+     * 在主线程中应用最新发布的进度并推进动画，把发生变化的区域记录到dirtyBounds中
+     *
+     * @return 进度条或文字是否有可见的变化
+     */
+    private boolean updateProgress(long frameTimeNanos) {
+        ensureStyle();
+        dirtyBounds.setEmpty();
+        boolean active = false;
+        if (progressChanged.getAndSet(false)) {
+            int target = targetProgress.get();
+            if (animateRequested) {
+                progressAnimator.animateTo(target, frameTimeNanos);
+            } else {
+                progressAnimator.setValue(target);
+            }
+            active = true;
+        }
+        if (progressAnimator.isRunning()) {
+            //同一个帧回调反复使用，动画结束后不再注册
+            if (progressAnimator.update(frameTimeNanos)) {
+                frameScheduler.schedule();
+            }
+            active = true;
+        }
+        return active && showProgress(progressAnimator.getValue());
+    }
+
+    /**
+     * 显示给定的进度，只有圆弧变化超过半度、动画结束或百分比变化时才需要刷新
+     */
+    private boolean showProgress(float newProgress) {
+        //绑定共用进度数据时直接使用它算好的百分比，与绑定同一数据的其他进度条一致
+        ProgressModel model = progressModel;
+        int newPercent = model != null ? model.getPercent() : WheelLabel.percentOf(newProgress);
+        boolean arcChanged = Math.round(newProgress) != Math.round(drawnProgress)
+                || (!progressAnimator.isRunning() && newProgress != drawnProgress);
+        boolean textChanged = newPercent != label.percent;
+        progress = newProgress;
+        if (!arcChanged && !textChanged) {
+            return false;
+        }
+
+        if (arcChanged) {
+            unionArcBounds(-90 + Math.min(drawnProgress, newProgress), -90 + Math.max(drawnProgress, newProgress));
+        }
+        if (textChanged) {
+            unionTextBounds();
+            label.setPercent(newPercent, style.percentLabels);
+            unionTextBounds();
+        }
+        return true;
+    }
+
+    /**
+     * 根据是否处于不确定模式以及是否可见，开始或停止旋转
+     */
+    private void updateSpinning() {
+        boolean shouldSpin = indeterminate && attached && isShown() && getWindowVisibility() == VISIBLE;
+        if (shouldSpin == spinning) {
+            return;
+        }
+        spinning = shouldSpin;
+        if (spinning) {
+            //重新开始计时，不把不可见期间的时间算进去
+            lastSpinTime = 0;
+            frameScheduler.schedule();
+        }
+    }
+
+    /**
+     * 按距离上一帧经过的时间推进旋转角度和圆弧长度
+     */
+    private void updateSpin(long now) {
+        long delta = lastSpinTime == 0 ? 0 : now - lastSpinTime;
+        lastSpinTime = now;
+
+        spinRotation = (spinRotation + spinSpeed * delta / 1000f) % 360;
+
+        //卡顿很久时直接跳到对应的阶段
+        spinCycleTime += delta;
+        if (spinCycleTime >= SPIN_CYCLE_TIME) {
+            long cycles = spinCycleTime / SPIN_CYCLE_TIME;
+            spinCycleTime %= SPIN_CYCLE_TIME;
+            if (cycles % 2 == 1) {
+                spinGrowing = !spinGrowing;
+            }
+        }
+
+        float distance = (float) Math.cos((spinCycleTime / (float) SPIN_CYCLE_TIME + 1) * Math.PI) / 2 + 0.5f;
+        float extra = SPIN_MAX_SWEEP - SPIN_MIN_SWEEP;
+        if (spinGrowing) {
+            spinSweep = SPIN_MIN_SWEEP + extra * distance;
+        } else {
+            //收缩时让圆弧的尾部追上头部，头部保持匀速
+            float newSweep = SPIN_MIN_SWEEP + extra * (1 - distance);
+            spinRotation = (spinRotation + spinSweep - newSweep) % 360;
+            spinSweep = newSweep;
         }
     }
 
+    /**
+     * 把进度条从startAngle到endAngle这段圆弧的外接矩形（加上进度条的宽度）合并到dirtyBounds中
+     */
+    private void unionArcBounds(float startAngle, float endAngle) {
+        ArcUtils.unionArcBounds(dirtyBounds, style.outerEdgeBounds, startAngle, endAngle, barWidth);
+    }
+
+    /**
+     * 把当前文字的区域合并到dirtyBounds中
+     */
+    private void unionTextBounds() {
+        float maxOffset = label.maxOffset();
+        if (maxOffset == 0) {
+            return;
+        }
+        float centerX = this.getWidth() / 2;
+        float baseline = this.getHeight() / 2 + style.verticalTextOffset;
+        dirtyBounds.union(centerX - maxOffset, baseline + style.textPaint.ascent(), centerX + maxOffset, baseline + style.textPaint.descent());
+    }
+
+    /**
+     * 只刷新dirtyBounds覆盖的区域
+     */
+    private void invalidateDirty() {
+        if (dirtyBounds.isEmpty()) {
+            return;
+        }
+        dirtyBounds.roundOut(dirtyRect);
+        invalidate(dirtyRect.left - 1, dirtyRect.top - 1, dirtyRect.right + 1, dirtyRect.bottom + 1);
+    }
+
     /**
      * @Description 根据手机的分辨率从 dp 的单位 转成为 px(像素)
      */
@@ -288,9 +577,8 @@ public class ProgressWheel extends View {
      * 重设进度条的值
      */
     public void resetCount() {
-        progress = 0;
-        setText("0%");
-        invalidate();
+        targetProgress.set(0);
+        publishProgress();
     }
 
     /**
@@ -301,48 +589,165 @@ public class ProgressWheel extends View {
     }
 
     public void incrementProgress(int amount) {
-        progress += amount;
-        if (progress >= 360) {
-            progress = 360;
-        }
-        setText(Math.round((progress / 360) * 100) + "%");
-        postInvalidate();
+        int current;
+        int next;
+        do {
+            current = targetProgress.get();
+            next = current + amount;
+            if (next >= 360) {
+                next = 360;
+            }
+        } while (!targetProgress.compareAndSet(current, next));
+        publishProgress();
     }
 
     /**
-     * 更新视图
+     * 更新视图，样式没有变化时只刷新进度发生变化的区域
      */
     public void resetView() {
-        postInvalidate();
+        if (styleChanged) {
+            styleChanged = false;
+            postInvalidate();
+        } else {
+            frameScheduler.schedule();
+        }
     }
 
     /********************* get和set方法 *********************/
 
     /**
-     * 设置进度条为一个确切的数值
+     * 设置进度条为一个确切的数值，可以在任意线程调用
      */
     public void setProgress(int pg) {
-        progress = pg;
-        if (progress >= 360) {
-            progress = 360;
+        setProgress(pg, false);
+    }
+
+    /**
+     * 设置进度条为一个确切的数值，可以在任意线程调用
+     *
+     * @param animate 是否以动画过渡到新的进度，动画进行中再次设置时会从当前位置和速度转向新的进度
+     */
+    public void setProgress(int pg, boolean animate) {
+        if (pg >= 360) {
+            pg = 360;
+        }
+        targetProgress.set(pg);
+        animateRequested = animate;
+        publishProgress();
+    }
+
+    /**
+     * @Description 绑定共用的进度数据，之后进度跟随数据变化，传入null解除绑定（只能在主线程调用）
+     */
+    public void setProgressModel(ProgressModel model) {
+        if (progressModel == model) {
+            return;
+        }
+        if (progressModel != null && attached) {
+            progressModel.removeListener(modelListener);
+        }
+        progressModel = model;
+        if (model != null && attached) {
+            model.addListener(modelListener);
+            applyModelProgress(model);
         }
-        setText(Math.round((progress / 360) * 100) + "%");
-        postInvalidate();
+    }
+
+    public ProgressModel getProgressModel() {
+        return progressModel;
     }
 
     /**
-     * @Description 获取当前进度
+     * @Description 获取当前进度（最近一次设置的值，可能还未绘制）
      */
     public int getProgress() {
-        return (int) progress;
+        return targetProgress.get();
+    }
+
+    /**
+     * @Description 是否处于不确定模式（旋转的圆弧）
+     */
+    public boolean isIndeterminate() {
+        return indeterminate;
+    }
+
+    /**
+     * @Description 切换不确定模式和确定进度模式，不需要重新加载布局
+     */
+    public void setIndeterminate(boolean indeterminate) {
+        if (this.indeterminate == indeterminate) {
+            return;
+        }
+        this.indeterminate = indeterminate;
+        if (indeterminate) {
+            spinRotation = 0;
+            spinSweep = SPIN_MIN_SWEEP;
+            spinGrowing = true;
+            spinCycleTime = 0;
+        }
+        updateSpinning();
+        invalidate();
+    }
+
+    public float getSpinSpeed() {
+        return spinSpeed;
+    }
+
+    /**
+     * @Description 设置不确定模式下的旋转速度（度/秒）
+     */
+    public void setSpinSpeed(float spinSpeed) {
+        this.spinSpeed = spinSpeed;
+    }
+
+    /**
+     * @Description 进度动画是否正在执行
+     */
+    public boolean isAnimating() {
+        return progressAnimator.isRunning();
+    }
+
+    public long getAnimationDuration() {
+        return progressAnimator.getDuration();
+    }
+
+    public void setAnimationDuration(long duration) {
+        progressAnimator.setDuration(duration);
+    }
+
+    public TimeInterpolator getAnimationInterpolator() {
+        return progressAnimator.getInterpolator();
+    }
+
+    public void setAnimationInterpolator(TimeInterpolator interpolator) {
+        progressAnimator.setInterpolator(interpolator);
+    }
+
+    /**
+     * @Description 获取收到的进度更新次数
+     */
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+
+    /**
+     * @Description 获取实际绘制的帧数
+     */
+    public long getFrameCount() {
+        return frameCount;
     }
 
     /**
      * 设置progress bar的文字并不需要刷新View
      */
     public void setText(String text) {
-        this.text = text;
-        splitText = this.text.split("\n");
+        //先应用尚未绘制的进度，避免它在之后覆盖这里设置的文字
+        if (progressChanged.get()) {
+            updateProgress(System.nanoTime());
+        }
+        label.setText(text);
+        measureLines();
+        styleChanged = true;
     }
 
     public float getTextSize() {
@@ -351,9 +756,7 @@ public class ProgressWheel extends View {
 
     public void setTextSize(float textSize) {
         this.textSize = textSize;
-        if (this.textPaint != null) {
-            this.textPaint.setTextSize(this.textSize);
-        }
+        markStyleDirty();
     }
 
     public int getTextColor() {
@@ -362,9 +765,7 @@ public class ProgressWheel extends View {
 
     public void setTextColor(int textColor) {
         this.textColor = textColor;
-        if (this.textPaint != null) {
-            this.textPaint.setColor(this.textColor);
-        }
+        markStyleDirty();
     }
 
     public int getBarColor() {
@@ -373,9 +774,7 @@ public class ProgressWheel extends View {
 
     public void setBarColor(int barColor) {
         this.barColor = barColor;
-        if (this.barPaint != null) {
-            this.barPaint.setColor(this.barColor);
-        }
+        markStyleDirty();
     }
 
     public int getBarWidth() {
@@ -384,9 +783,7 @@ public class ProgressWheel extends View {
 
     public void setBarWidth(int barWidth) {
         this.barWidth = barWidth;
-        if (this.barPaint != null) {
-            this.barPaint.setStrokeWidth(this.barWidth);
-        }
+        markStyleDirty();
     }
 
     public int getRimColor() {
@@ -395,9 +792,7 @@ public class ProgressWheel extends View {
 
     public void setRimColor(int rimColor) {
         this.rimColor = rimColor;
-        if (this.rimPaint != null) {
-            this.rimPaint.setColor(this.rimColor);
-        }
+        markStyleDirty();
     }
 
     public int getRimWidth() {
@@ -406,17 +801,16 @@ public class ProgressWheel extends View {
 
     public void setRimWidth(int rimWidth) {
         this.rimWidth = rimWidth;
-        if (this.rimPaint != null) {
-            this.rimPaint.setStrokeWidth(this.rimWidth);
-        }
+        markStyleDirty();
     }
 
     public Shader getRimShader() {
-        return rimPaint.getShader();
+        return rimShader;
     }
 
     public void setRimShader(Shader shader) {
-        this.rimPaint.setShader(shader);
+        this.rimShader = shader;
+        markStyleDirty();
     }
 
     public int getCircleInnerColor() {
@@ -425,9 +819,7 @@ public class ProgressWheel extends View {
 
     public void setCircleInnerColor(int circleInnerColor) {
         this.circleInnerColor = circleInnerColor;
-        if (this.circleInnerPaint != null) {
-            this.circleInnerPaint.setColor(this.circleInnerColor);
-        }
+        markStyleDirty();
     }
 
     public int getOuterEdgeColor() {
@@ -436,9 +828,7 @@ public class ProgressWheel extends View {
 
     public void setOuterEdgeColor(int outerEdgeColor) {
         this.outerEdgeColor = outerEdgeColor;
-        if (outerEdgePaint != null) {
-            this.outerEdgePaint.setColor(this.outerEdgeColor);
-        }
+        markStyleDirty();
     }
 
     public float getOuterEdgeSize() {
@@ -447,9 +837,7 @@ public class ProgressWheel extends View {
 
     public void setOuterEdgeSize(float outerEdgeSize) {
         this.outerEdgeSize = outerEdgeSize;
-        if (outerEdgePaint != null) {
-            this.outerEdgePaint.setStrokeWidth(this.outerEdgeSize);
-        }
+        markStyleDirty();
     }
 
     public int getInnerEdgeColor() {
@@ -458,9 +846,7 @@ public class ProgressWheel extends View {
 
     public void setInnerEdgeColor(int innerEdgeColor) {
         this.innerEdgeColor = innerEdgeColor;
-        if (innerEdgePaint != null) {
-            this.innerEdgePaint.setColor(this.innerEdgeColor);
-        }
+        markStyleDirty();
     }
 
     public float getInnerEdgeSize() {
@@ -469,9 +855,7 @@ public class ProgressWheel extends View {
 
     public void setInnerEdgeSize(float innerEdgeSize) {
         this.innerEdgeSize = innerEdgeSize;
-        if (innerEdgePaint != null) {
-            this.innerEdgePaint.setStrokeWidth(this.innerEdgeSize);
-        }
+        markStyleDirty();
     }
 
     public int getPaddingTop() {
@@ -480,6 +864,7 @@ public class ProgressWheel extends View {
 
     public void setPaddingTop(int paddingTop) {
         this.paddingTop = paddingTop;
+        markStyleDirty();
     }
 
     public int getPaddingBottom() {
@@ -488,6 +873,7 @@ public class ProgressWheel extends View {
 
     public void setPaddingBottom(int paddingBottom) {
         this.paddingBottom = paddingBottom;
+        markStyleDirty();
     }
 
     public int getPaddingLeft() {
@@ -496,6 +882,7 @@ public class ProgressWheel extends View {
 
     public void setPaddingLeft(int paddingLeft) {
         this.paddingLeft = paddingLeft;
+        markStyleDirty();
     }
 
     public int getPaddingRight() {
@@ -504,5 +891,6 @@ public class ProgressWheel extends View {
 
     public void setPaddingRight(int paddingRight) {
         this.paddingRight = paddingRight;
+        markStyleDirty();
     }
 }
@@ -0,0 +1,265 @@
+package com.wiggins.progresswheel.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+/**
+ * @Description ProgressWheel不随进度变化的部分（圈内、轮廓、内外边缘）及其静态背景层，创建后不再修改
+ * 键只包含几何尺寸和这几部分的属性，进度条颜色或文字变化时不会重新绘制背景层。
+ * 附加到窗口的进度条通过acquire()共用同一个对象，由RefCountedCache计数，最后一个进度条release()后回收位图并移出缓存，
+ * 缓存不会在进度条离开窗口后继续持有位图或着色器
+ * @Author 一花一世界
+ */
+final class ProgressWheelBackground {
+
+    // 正在被附加到窗口的进度条使用的背景
+    private static final RefCountedCache<Key, ProgressWheelBackground> sShared = new RefCountedCache<Key, ProgressWheelBackground>(
+            new RefCountedCache.Factory<Key, ProgressWheelBackground>() {
+                @Override
+                public Key copyKey(Key probe) {
+                    return new Key(probe);
+                }
+
+                @Override
+                public ProgressWheelBackground create(Key key) {
+                    ProgressWheelBackground background = new ProgressWheelBackground(key);
+                    background.shared = true;
+                    return background;
+                }
+
+                @Override
+                public void recycle(ProgressWheelBackground background) {
+                    background.shared = false;
+                    if (background.backgroundLayer != null) {
+                        background.backgroundLayer.recycle();
+                        background.backgroundLayer = null;
+                    }
+                }
+            });
+
+    final Key key;
+
+    //绘制要用的矩形
+    private final RectF outerEdgeContour;//外边缘
+    private final RectF innerEdgeContour;//内边缘
+    private final RectF innerEdgeBounds;//内圈边界
+    private final RectF outerEdgeBounds;//外圈边界
+
+    //绘制要用的画笔
+    private final Paint rimPaint = new Paint();//默认轮廓
+    private final Paint circleInnerPaint = new Paint();//圈内
+    private final Paint outerEdgePaint = new Paint();//外边缘
+    private final Paint innerEdgePaint = new Paint();//内边缘
+
+    //静态背景层，第一次绘制时创建，只有被acquire()持有时才创建
+    private Bitmap backgroundLayer;
+    private boolean backgroundFailed = false;
+    //是否在共用缓存中，只有共用的背景才有背景层
+    private boolean shared = false;
+
+    /**
+     * 获取与给定属性对应的共用背景并增加引用计数，之后需要调用release()，只能在主线程调用
+     *
+     * @param probe 查询用的属性，找不到时会复制一份作为新背景的键，调用方可以继续复用
+     */
+    static ProgressWheelBackground acquire(Key probe) {
+        return sShared.acquire(probe);
+    }
+
+    /**
+     * 创建不共用的背景，没有背景层，只能直接绘制（用于还没有附加到窗口的进度条）
+     */
+    static ProgressWheelBackground unshared(Key probe) {
+        return new ProgressWheelBackground(new Key(probe));
+    }
+
+    private ProgressWheelBackground(Key key) {
+        this.key = key;
+
+        //设置元素边界
+        innerEdgeBounds = new RectF(
+                key.paddingLeft + (1.5f * key.barWidth),
+                key.paddingTop + (1.5f * key.barWidth),
+                key.width - key.paddingRight - (1.5f * key.barWidth),
+                key.height - key.paddingBottom - (1.5f * key.barWidth));
+
+        outerEdgeBounds = new RectF(
+                key.paddingLeft + key.barWidth,
+                key.paddingTop + key.barWidth,
+                key.width - key.paddingRight - key.barWidth,
+                key.height - key.paddingBottom - key.barWidth);
+
+        innerEdgeContour = new RectF(
+                outerEdgeBounds.left + (key.rimWidth / 2.0f) + (key.outerEdgeSize / 2.0f),
+                outerEdgeBounds.top + (key.rimWidth / 2.0f) + (key.outerEdgeSize / 2.0f),
+                outerEdgeBounds.right - (key.rimWidth / 2.0f) - (key.outerEdgeSize / 2.0f),
+                outerEdgeBounds.bottom - (key.rimWidth / 2.0f) - (key.outerEdgeSize / 2.0f));
+
+        outerEdgeContour = new RectF(
+                outerEdgeBounds.left - (key.rimWidth / 2.0f) - (key.innerEdgeSize / 2.0f),
+                outerEdgeBounds.top - (key.rimWidth / 2.0f) - (key.innerEdgeSize / 2.0f),
+                outerEdgeBounds.right + (key.rimWidth / 2.0f) + (key.innerEdgeSize / 2.0f),
+                outerEdgeBounds.bottom + (key.rimWidth / 2.0f) + (key.innerEdgeSize / 2.0f));
+
+        //圆环
+        rimPaint.setColor(key.rimColor);
+        rimPaint.setAntiAlias(true);
+        rimPaint.setStyle(Style.STROKE);
+        rimPaint.setStrokeWidth(key.rimWidth);
+        rimPaint.setShader(key.rimShader);
+
+        //环内
+        circleInnerPaint.setColor(key.circleInnerColor);
+        circleInnerPaint.setAntiAlias(true);
+        circleInnerPaint.setStyle(Style.FILL);
+
+        //外边缘
+        outerEdgePaint.setColor(key.outerEdgeColor);
+        outerEdgePaint.setAntiAlias(true);
+        outerEdgePaint.setStyle(Style.STROKE);
+        outerEdgePaint.setStrokeWidth(key.outerEdgeSize);
+
+        //内边缘
+        innerEdgePaint.setColor(key.innerEdgeColor);
+        innerEdgePaint.setAntiAlias(true);
+        innerEdgePaint.setStyle(Style.STROKE);
+        innerEdgePaint.setStrokeWidth(key.innerEdgeSize);
+    }
+
+    /**
+     * 减少引用计数，没有进度条使用时回收背景层并移出缓存，只能在主线程调用
+     */
+    void release() {
+        if (shared) {
+            sShared.release(key);
+        }
+    }
+
+    /**
+     * 绘制不随进度变化的部分
+     */
+    void draw(Canvas canvas) {
+        //绘制边界
+        canvas.drawArc(innerEdgeBounds, 360, 360, false, circleInnerPaint);
+        canvas.drawArc(outerEdgeBounds, 360, 360, false, rimPaint);
+
+        //绘制边缘
+        canvas.drawArc(outerEdgeContour, 360, 360, false, outerEdgePaint);
+        canvas.drawArc(innerEdgeContour, 360, 360, false, innerEdgePaint);
+    }
+
+    /**
+     * 获取静态背景层，第一次调用时绘制，之后所有共用该背景的进度条直接使用
+     *
+     * @return 背景层，没有被持有、尺寸无效或内存不足时返回null
+     */
+    Bitmap getLayer() {
+        if (!shared) {
+            return null;
+        }
+        if (backgroundLayer == null && !backgroundFailed && key.width > 0 && key.height > 0) {
+            try {
+                backgroundLayer = Bitmap.createBitmap(key.width, key.height, Bitmap.Config.ARGB_8888);
+            } catch (OutOfMemoryError e) {
+                backgroundFailed = true;
+                return null;
+            }
+            backgroundLayer.eraseColor(Color.TRANSPARENT);
+            draw(new Canvas(backgroundLayer));
+        }
+        return backgroundLayer;
+    }
+
+    /**
+     * 背景的键，包含所有影响圈内、轮廓和内外边缘的属性
+     */
+    static final class Key {
+        int width;
+        int height;
+        int paddingLeft;
+        int paddingTop;
+        int paddingRight;
+        int paddingBottom;
+        int barWidth;
+        int rimWidth;
+        float outerEdgeSize;
+        float innerEdgeSize;
+        int rimColor;
+        int circleInnerColor;
+        int outerEdgeColor;
+        int innerEdgeColor;
+        Shader rimShader;
+
+        Key() {
+        }
+
+        Key(Key other) {
+            width = other.width;
+            height = other.height;
+            paddingLeft = other.paddingLeft;
+            paddingTop = other.paddingTop;
+            paddingRight = other.paddingRight;
+            paddingBottom = other.paddingBottom;
+            barWidth = other.barWidth;
+            rimWidth = other.rimWidth;
+            outerEdgeSize = other.outerEdgeSize;
+            innerEdgeSize = other.innerEdgeSize;
+            rimColor = other.rimColor;
+            circleInnerColor = other.circleInnerColor;
+            outerEdgeColor = other.outerEdgeColor;
+            innerEdgeColor = other.innerEdgeColor;
+            rimShader = other.rimShader;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return width == other.width
+                    && height == other.height
+                    && paddingLeft == other.paddingLeft
+                    && paddingTop == other.paddingTop
+                    && paddingRight == other.paddingRight
+                    && paddingBottom == other.paddingBottom
+                    && barWidth == other.barWidth
+                    && rimWidth == other.rimWidth
+                    && Float.compare(outerEdgeSize, other.outerEdgeSize) == 0
+                    && Float.compare(innerEdgeSize, other.innerEdgeSize) == 0
+                    && rimColor == other.rimColor
+                    && circleInnerColor == other.circleInnerColor
+                    && outerEdgeColor == other.outerEdgeColor
+                    && innerEdgeColor == other.innerEdgeColor
+                    && rimShader == other.rimShader;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + paddingLeft;
+            result = 31 * result + paddingTop;
+            result = 31 * result + paddingRight;
+            result = 31 * result + paddingBottom;
+            result = 31 * result + barWidth;
+            result = 31 * result + rimWidth;
+            result = 31 * result + Float.floatToIntBits(outerEdgeSize);
+            result = 31 * result + Float.floatToIntBits(innerEdgeSize);
+            result = 31 * result + rimColor;
+            result = 31 * result + circleInnerColor;
+            result = 31 * result + outerEdgeColor;
+            result = 31 * result + innerEdgeColor;
+            result = 31 * result + (rimShader != null ? rimShader.hashCode() : 0);
+            return result;
+        }
+    }
+}
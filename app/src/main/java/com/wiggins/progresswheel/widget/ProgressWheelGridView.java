@@ -0,0 +1,416 @@
+package com.wiggins.progresswheel.widget;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.wiggins.progresswheel.R;
+
+/**
+ * @Description 在一个View中按网格绘制多个进度条，所有进度条共用画笔，只绘制屏幕上可见区域附近的格子，
+ * 某个进度条变化时只刷新它所在的格子（只能在主线程调用）
+ * 硬件加速时局部刷新仍会重新记录整个显示列表，所以另外按getLocalVisibleRect裁剪，
+ * 滚动露出未绘制的格子时再整体刷新
+ * @Author 一花一世界
+ */
+public class ProgressWheelGridView extends View {
+
+    // 列数
+    private int mColumnCount = 4;
+    // 宽度不受限制时（例如在HorizontalScrollView中）格子的默认大小
+    private int mDefaultCellSize = dip2px(64);
+    // 格子的内边距
+    private float mCellPadding = dip2px(4);
+    // 进度条宽度
+    private float mBarWidth = dip2px(4);
+    // 轮廓宽度
+    private float mRimWidth = dip2px(4);
+    // 字体大小
+    private float mTextSize = dip2px(12);
+    // 默认颜色
+    private int mDefaultBarColor = 0xAA000000;
+    private int mDefaultRimColor = 0xAADDDDDD;
+    private int mTextColor = 0xFF000000;
+
+    // 共用的画笔
+    private Paint mBarPaint = new Paint();
+    private Paint mRimPaint = new Paint();
+    private Paint mTextPaint = new Paint();
+    private final PercentLabels mPercentLabels = new PercentLabels();
+    private float mVerticalTextOffset;
+
+    // 进度条的状态，按下标保存
+    private int mCount = 0;
+    private float[] mProgress = new float[0];// 进度（0~360）
+    private int[] mBarColors = new int[0];
+    private int[] mRimColors = new int[0];
+    private String[] mLabels = new String[0];// 自定义文字，为null时显示百分比
+    private float[] mLabelWidths = new float[0];
+
+    // 格子大小
+    private int mCellSize = 0;
+    // 绘制时复用的对象
+    private final RectF mOval = new RectF();
+    private final Rect mClipBounds = new Rect();
+    private final Rect mVisibleBounds = new Rect();
+    // 上次绘制覆盖的区域（可见区域向外扩展一个格子），滚动超出这个区域时需要重新绘制
+    private final Rect mDrawnBounds = new Rect();
+    private final ViewTreeObserver.OnScrollChangedListener mScrollListener = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            if (getLocalVisibleRect(mVisibleBounds) && !mDrawnBounds.contains(mVisibleBounds)) {
+                invalidate();
+            }
+        }
+    };
+
+    public ProgressWheelGridView(Context context) {
+        this(context, null);
+    }
+
+    public ProgressWheelGridView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ProgressWheelGridView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        TypedArray mTypedArray = context.obtainStyledAttributes(attrs, R.styleable.ProgressWheelGridView);
+
+        // 获取自定义属性和默认值
+        mColumnCount = Math.max(1, mTypedArray.getInteger(R.styleable.ProgressWheelGridView_pgColumnCount, mColumnCount));
+        mCellPadding = mTypedArray.getDimension(R.styleable.ProgressWheelGridView_pgCellPadding, mCellPadding);
+        mBarWidth = mTypedArray.getDimension(R.styleable.ProgressWheelGridView_pgBarWidth, mBarWidth);
+        mRimWidth = mTypedArray.getDimension(R.styleable.ProgressWheelGridView_pgRimWidth, mRimWidth);
+        mTextSize = mTypedArray.getDimension(R.styleable.ProgressWheelGridView_pgTextSize, mTextSize);
+        mDefaultBarColor = mTypedArray.getColor(R.styleable.ProgressWheelGridView_pgBarColor, mDefaultBarColor);
+        mDefaultRimColor = mTypedArray.getColor(R.styleable.ProgressWheelGridView_pgRimColor, mDefaultRimColor);
+        mTextColor = mTypedArray.getColor(R.styleable.ProgressWheelGridView_pgTextColor, mTextColor);
+
+        mTypedArray.recycle();
+        setupPaints();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int desiredWidth = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED
+                ? mDefaultCellSize * mColumnCount + horizontalPadding : MeasureSpec.getSize(widthMeasureSpec);
+        int width = resolveSize(desiredWidth, widthMeasureSpec);
+        int cellSize = Math.max(0, (width - horizontalPadding) / mColumnCount);
+        int rows = (mCount + mColumnCount - 1) / mColumnCount;
+        int height = rows * cellSize + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnScrollChangedListener(mScrollListener);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        getViewTreeObserver().removeOnScrollChangedListener(mScrollListener);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mCellSize = (w - getPaddingLeft() - getPaddingRight()) / mColumnCount;
+    }
+
+    private void setupPaints() {
+        mBarPaint.setAntiAlias(true);
+        mBarPaint.setStyle(Style.STROKE);
+        mBarPaint.setStrokeWidth(mBarWidth);
+
+        mRimPaint.setAntiAlias(true);
+        mRimPaint.setStyle(Style.STROKE);
+        mRimPaint.setStrokeWidth(mRimWidth);
+
+        mTextPaint.setColor(mTextColor);
+        mTextPaint.setStyle(Style.FILL);
+        mTextPaint.setAntiAlias(true);
+        mTextPaint.setTextSize(mTextSize);
+        mPercentLabels.measure(mTextPaint);
+        float textHeight = mTextPaint.descent() - mTextPaint.ascent();
+        mVerticalTextOffset = (textHeight / 2) - mTextPaint.descent();
+        for (int i = 0; i < mCount; i++) {
+            if (mLabels[i] != null) {
+                mLabelWidths[i] = mTextPaint.measureText(mLabels[i]);
+            }
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mCellSize <= 0 || mCount == 0) {
+            return;
+        }
+
+        // 只绘制与裁剪区域相交的行，硬件加速时裁剪区域总是整个View，再与屏幕上可见的区域（向外扩展一个格子）求交
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        mDrawnBounds.setEmpty();
+        if (!canvas.getClipBounds(mClipBounds) || !getLocalVisibleRect(mVisibleBounds)) {
+            return;
+        }
+        mVisibleBounds.inset(-mCellSize, -mCellSize);
+        if (!mClipBounds.intersect(mVisibleBounds)) {
+            return;
+        }
+        mDrawnBounds.set(mVisibleBounds);
+        int firstRow = Math.max(0, (mClipBounds.top - top) / mCellSize);
+        int lastRow = Math.min((mCount - 1) / mColumnCount, (mClipBounds.bottom - top) / mCellSize);
+
+        float inset = mCellPadding + Math.max(mBarWidth, mRimWidth) / 2;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int cellTop = top + row * mCellSize;
+            for (int column = 0; column < mColumnCount; column++) {
+                int index = row * mColumnCount + column;
+                if (index >= mCount) {
+                    break;
+                }
+                int cellLeft = left + column * mCellSize;
+                if (cellLeft + mCellSize < mClipBounds.left || cellLeft > mClipBounds.right) {
+                    continue;
+                }
+                mOval.set(cellLeft + inset, cellTop + inset, cellLeft + mCellSize - inset, cellTop + mCellSize - inset);
+
+                mRimPaint.setColor(mRimColors[index]);
+                canvas.drawArc(mOval, 360, 360, false, mRimPaint);
+                mBarPaint.setColor(mBarColors[index]);
+                canvas.drawArc(mOval, -90, mProgress[index], false, mBarPaint);
+
+                String label;
+                float labelWidth;
+                if (mLabels[index] != null) {
+                    label = mLabels[index];
+                    labelWidth = mLabelWidths[index];
+                } else {
+                    int percent = Math.round((mProgress[index] / 360) * 100);
+                    label = PercentLabels.label(percent);
+                    labelWidth = mPercentLabels.width(percent);
+                }
+                canvas.drawText(label,
+                        mOval.centerX() - labelWidth / 2,
+                        mOval.centerY() + mVerticalTextOffset,
+                        mTextPaint);
+            }
+        }
+    }
+
+    private int dip2px(float dpValue) {
+        final float scale = getContext().getResources().getDisplayMetrics().density;
+        return (int) (dpValue * scale + 0.5f);
+    }
+
+    /**
+     * 只刷新某个进度条所在的格子
+     */
+    private void invalidateCell(int index) {
+        if (mCellSize <= 0) {
+            return;
+        }
+        int left = getPaddingLeft() + (index % mColumnCount) * mCellSize;
+        int top = getPaddingTop() + (index / mColumnCount) * mCellSize;
+        invalidate(left, top, left + mCellSize, top + mCellSize);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mCount) {
+            throw new IndexOutOfBoundsException("index " + index + " out of range, count " + mCount);
+        }
+    }
+
+    /********************* get和set方法 *********************/
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @Description 设置进度条的数量，保留已有进度条的状态，新增的进度条使用默认颜色
+     */
+    public void setCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count not less than 0");
+        }
+        if (count == mCount) {
+            return;
+        }
+        if (count > mProgress.length) {
+            int capacity = Math.max(count, mProgress.length * 2);
+            float[] progress = new float[capacity];
+            int[] barColors = new int[capacity];
+            int[] rimColors = new int[capacity];
+            String[] labels = new String[capacity];
+            float[] labelWidths = new float[capacity];
+            System.arraycopy(mProgress, 0, progress, 0, mCount);
+            System.arraycopy(mBarColors, 0, barColors, 0, mCount);
+            System.arraycopy(mRimColors, 0, rimColors, 0, mCount);
+            System.arraycopy(mLabels, 0, labels, 0, mCount);
+            System.arraycopy(mLabelWidths, 0, labelWidths, 0, mCount);
+            mProgress = progress;
+            mBarColors = barColors;
+            mRimColors = rimColors;
+            mLabels = labels;
+            mLabelWidths = labelWidths;
+        }
+        for (int i = mCount; i < count; i++) {
+            mProgress[i] = 0;
+            mBarColors[i] = mDefaultBarColor;
+            mRimColors[i] = mDefaultRimColor;
+            mLabels[i] = null;
+        }
+        mCount = count;
+        requestLayout();
+        invalidate();
+    }
+
+    public int getProgress(int index) {
+        checkIndex(index);
+        return (int) mProgress[index];
+    }
+
+    /**
+     * @Description 设置某个进度条的进度（0~360），没有变化时不刷新
+     */
+    public void setProgress(int index, int progress) {
+        checkIndex(index);
+        if (progress >= 360) {
+            progress = 360;
+        }
+        if (mProgress[index] == progress) {
+            return;
+        }
+        mProgress[index] = progress;
+        invalidateCell(index);
+    }
+
+    public int getBarColor(int index) {
+        checkIndex(index);
+        return mBarColors[index];
+    }
+
+    public void setBarColor(int index, int color) {
+        checkIndex(index);
+        if (mBarColors[index] == color) {
+            return;
+        }
+        mBarColors[index] = color;
+        invalidateCell(index);
+    }
+
+    public int getRimColor(int index) {
+        checkIndex(index);
+        return mRimColors[index];
+    }
+
+    public void setRimColor(int index, int color) {
+        checkIndex(index);
+        if (mRimColors[index] == color) {
+            return;
+        }
+        mRimColors[index] = color;
+        invalidateCell(index);
+    }
+
+    public String getLabel(int index) {
+        checkIndex(index);
+        return mLabels[index];
+    }
+
+    /**
+     * @Description 设置某个进度条中间的文字，为null时显示百分比，没有变化时不刷新
+     */
+    public void setLabel(int index, String label) {
+        checkIndex(index);
+        if (label == null ? mLabels[index] == null : label.equals(mLabels[index])) {
+            return;
+        }
+        mLabels[index] = label;
+        if (label != null) {
+            mLabelWidths[index] = mTextPaint.measureText(label);
+        }
+        invalidateCell(index);
+    }
+
+    public int getColumnCount() {
+        return mColumnCount;
+    }
+
+    public void setColumnCount(int columnCount) {
+        if (columnCount < 1) {
+            throw new IllegalArgumentException("columnCount not less than 1");
+        }
+        if (columnCount == mColumnCount) {
+            return;
+        }
+        this.mColumnCount = columnCount;
+        mCellSize = (getWidth() - getPaddingLeft() - getPaddingRight()) / mColumnCount;
+        requestLayout();
+        invalidate();
+    }
+
+    public float getTextSize() {
+        return mTextSize;
+    }
+
+    public void setTextSize(float textSize) {
+        if (mTextSize == textSize) {
+            return;
+        }
+        this.mTextSize = textSize;
+        setupPaints();
+        invalidate();
+    }
+
+    public int getTextColor() {
+        return mTextColor;
+    }
+
+    public void setTextColor(int textColor) {
+        if (mTextColor == textColor) {
+            return;
+        }
+        this.mTextColor = textColor;
+        mTextPaint.setColor(textColor);
+        invalidate();
+    }
+
+    public float getBarWidth() {
+        return mBarWidth;
+    }
+
+    public void setBarWidth(float barWidth) {
+        if (mBarWidth == barWidth) {
+            return;
+        }
+        this.mBarWidth = barWidth;
+        mBarPaint.setStrokeWidth(barWidth);
+        invalidate();
+    }
+
+    public float getRimWidth() {
+        return mRimWidth;
+    }
+
+    public void setRimWidth(float rimWidth) {
+        if (mRimWidth == rimWidth) {
+            return;
+        }
+        this.mRimWidth = rimWidth;
+        mRimPaint.setStrokeWidth(rimWidth);
+        invalidate();
+    }
+}
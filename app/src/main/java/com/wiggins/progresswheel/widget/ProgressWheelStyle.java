@@ -0,0 +1,147 @@
+package com.wiggins.progresswheel.widget;
+
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.graphics.RectF;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Description ProgressWheel进度条和文字的几何尺寸和画笔，创建后不再修改
+ * 尺寸、间距、进度条宽度和颜色、文字都相同的进度条共用同一个对象，只保留在一个有上限的缓存中。
+ * 不包含位图和着色器，静态背景层见ProgressWheelBackground
+ * @Author 一花一世界
+ */
+final class ProgressWheelStyle {
+
+    // 缓存的最大数量
+    private static final int MAX_CACHE_SIZE = 16;
+
+    private static final Map<Key, ProgressWheelStyle> sCache = new LinkedHashMap<Key, ProgressWheelStyle>(MAX_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ProgressWheelStyle> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    final Key key;
+
+    //进度条所在的圆
+    final RectF outerEdgeBounds;
+
+    //绘制要用的画笔
+    final Paint barPaint = new Paint();//进度条
+    final Paint textPaint = new Paint();//字体
+
+    //文字
+    final PercentLabels percentLabels = new PercentLabels();
+    final float verticalTextOffset;//文字的垂直偏移量
+
+    /**
+     * 获取与给定属性对应的样式，只能在主线程调用
+     *
+     * @param probe 查询用的属性，找不到时会复制一份作为新样式的键，调用方可以继续复用
+     */
+    static ProgressWheelStyle obtain(Key probe) {
+        ProgressWheelStyle style = sCache.get(probe);
+        if (style == null) {
+            style = new ProgressWheelStyle(new Key(probe));
+            sCache.put(style.key, style);
+        }
+        return style;
+    }
+
+    private ProgressWheelStyle(Key key) {
+        this.key = key;
+
+        outerEdgeBounds = new RectF(
+                key.paddingLeft + key.barWidth,
+                key.paddingTop + key.barWidth,
+                key.width - key.paddingRight - key.barWidth,
+                key.height - key.paddingBottom - key.barWidth);
+
+        //进度条
+        barPaint.setColor(key.barColor);//设置画笔颜色
+        barPaint.setAntiAlias(true);//设置抗锯齿
+        barPaint.setStyle(Style.STROKE);//设置画笔为空心
+        barPaint.setStrokeWidth(key.barWidth);//设置线宽
+
+        //字体
+        textPaint.setColor(key.textColor);
+        textPaint.setStyle(Style.FILL);
+        textPaint.setAntiAlias(true);
+        textPaint.setTextSize(key.textSize);
+        percentLabels.measure(textPaint);
+        float textHeight = textPaint.descent() - textPaint.ascent();
+        verticalTextOffset = (textHeight / 2) - textPaint.descent();
+    }
+
+    /**
+     * 样式的键，包含所有影响进度条和文字的属性
+     */
+    static final class Key {
+        int width;
+        int height;
+        int paddingLeft;
+        int paddingTop;
+        int paddingRight;
+        int paddingBottom;
+        int barWidth;
+        float textSize;
+        int barColor;
+        int textColor;
+
+        Key() {
+        }
+
+        Key(Key other) {
+            width = other.width;
+            height = other.height;
+            paddingLeft = other.paddingLeft;
+            paddingTop = other.paddingTop;
+            paddingRight = other.paddingRight;
+            paddingBottom = other.paddingBottom;
+            barWidth = other.barWidth;
+            textSize = other.textSize;
+            barColor = other.barColor;
+            textColor = other.textColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return width == other.width
+                    && height == other.height
+                    && paddingLeft == other.paddingLeft
+                    && paddingTop == other.paddingTop
+                    && paddingRight == other.paddingRight
+                    && paddingBottom == other.paddingBottom
+                    && barWidth == other.barWidth
+                    && Float.compare(textSize, other.textSize) == 0
+                    && barColor == other.barColor
+                    && textColor == other.textColor;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + paddingLeft;
+            result = 31 * result + paddingTop;
+            result = 31 * result + paddingRight;
+            result = 31 * result + paddingBottom;
+            result = 31 * result + barWidth;
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + barColor;
+            result = 31 * result + textColor;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.wiggins.progresswheel.widget;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description 按键共用对象并计数：相同的键只创建一个对象，每次acquire()增加引用计数，
+ * 最后一个使用者release()后移出缓存并回收，缓存不会持有没有使用者的对象（只能在主线程调用）
+ * @Author 一花一世界
+ */
+final class RefCountedCache<K, V> {
+
+    interface Factory<K, V> {
+        /**
+         * 复制查询用的键作为缓存的键，调用方可以继续修改和复用查询用的键
+         */
+        K copyKey(K probe);
+
+        V create(K key);
+
+        /**
+         * 最后一个使用者释放后调用
+         */
+        void recycle(V value);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        int refCount;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+
+    private final Factory<K, V> mFactory;
+    private final Map<K, Entry<V>> mEntries = new HashMap<K, Entry<V>>();
+
+    RefCountedCache(Factory<K, V> factory) {
+        this.mFactory = factory;
+    }
+
+    /**
+     * 获取与键对应的共用对象并增加引用计数，之后需要调用release()
+     */
+    V acquire(K probe) {
+        Entry<V> entry = mEntries.get(probe);
+        if (entry == null) {
+            K key = mFactory.copyKey(probe);
+            entry = new Entry<V>(mFactory.create(key));
+            mEntries.put(key, entry);
+        }
+        entry.refCount++;
+        return entry.value;
+    }
+
+    /**
+     * 减少引用计数，没有使用者时移出缓存并回收
+     *
+     * @return 对象是否已被回收
+     */
+    boolean release(K key) {
+        Entry<V> entry = mEntries.get(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.refCount--;
+        if (entry.refCount > 0) {
+            return false;
+        }
+        mEntries.remove(key);
+        mFactory.recycle(entry.value);
+        return true;
+    }
+
+    /**
+     * 缓存中的对象数量
+     */
+    int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * 键对应的引用计数，不在缓存中时返回0
+     */
+    int refCount(K key) {
+        Entry<V> entry = mEntries.get(key);
+        return entry != null ? entry.refCount : 0;
+    }
+}
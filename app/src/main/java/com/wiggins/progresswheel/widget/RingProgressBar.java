@@ -6,6 +6,7 @@ import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.graphics.RectF;
 import android.graphics.Typeface;
 import android.util.AttributeSet;
@@ -13,6 +14,9 @@ import android.view.View;
 
 import com.wiggins.progresswheel.R;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @Description 进度条
  * @Author 一花一世界
@@ -25,6 +29,20 @@ public class RingProgressBar extends View {
     private Paint mTextPaint = new Paint();
     // 绘制进度的画笔
     private Paint mProgressPaint = new Paint();
+    // 中间的百分比文字和位置
+    private final PercentLabelLayout mLabelLayout = new PercentLabelLayout();
+    // 没有绑定共用进度数据时由当前进度算出的百分比和角度
+    private final ProgressFraction mProgressFraction = new ProgressFraction();
+    // 圆心、半径和圆弧的边界，尺寸或圆环宽度变化时重新计算
+    private int mCentre;
+    private int mRadius;
+    private final RectF mOval = new RectF();
+    // 属性变化后需要在下次绘制前重新设置画笔和边界
+    private boolean mStateDirty = true;
+    // 当前进度的圆弧或扇形路径，整数角度变化时才从共用的缓存中重新获取
+    private final SweepPathCache.Key mSweepKey = new SweepPathCache.Key();
+    private Path mSweepPath;
+    private int mSweepDegree = -1;
 
     // 圆环的颜色
     private int mRingColor;
@@ -42,10 +60,23 @@ public class RingProgressBar extends View {
     private float mTextSize;
     // 是否显示中间的进度值
     private boolean mTextIsDisplayable;
-    // 最大进度值
-    private int mMaxProgress;
-    // 当前进度值
-    private int mCurrentProgress;
+    // 最大进度值，用long保存，可以直接使用字节数
+    private volatile long mMaxProgress;
+    // 当前进度值，可以在任意线程修改
+    private final AtomicLong mCurrentProgress = new AtomicLong(0);
+    // 是否已经请求了刷新，进度变化再频繁每帧也只刷新一次
+    private final AtomicBoolean mRedrawPending = new AtomicBoolean(false);
+    // 是否在百分比下面显示速度和剩余时间
+    private boolean mShowRate;
+    // 绑定的共用进度数据，附加到窗口时才注册监听
+    private ProgressModel mProgressModel;
+    private boolean mAttached = false;
+    private final ProgressModel.OnProgressChangeListener mModelListener = new ProgressModel.OnProgressChangeListener() {
+        @Override
+        public void onProgressChanged(ProgressModel model) {
+            applyModelProgress(model);
+        }
+    };
 
     // 圆环颜色 - orange
     private int defaultRingColor = Color.parseColor("#fa7c20");
@@ -65,6 +96,23 @@ public class RingProgressBar extends View {
     private boolean defaultRingIsStroke = true;
     // 是否显示中间进度值
     private boolean defaultTextIsDisplayable = true;
+    // 是否显示速度和剩余时间
+    private boolean defaultShowRate = false;
+
+    // 速度和剩余时间，每帧采样一次
+    private static final long RATE_REFRESH_INTERVAL = 500;// 进度停止变化时刷新速度的间隔（毫秒）
+    private final TransferRate mTransferRate = new TransferRate();
+    private final char[] mRateText = new char[32];
+    private float mLineHeight;
+    // 是否已经安排了刷新速度，只在主线程访问，避免每帧都重新post
+    private boolean mRateRefreshPending = false;
+    private final Runnable mRateRefresh = new Runnable() {
+        @Override
+        public void run() {
+            mRateRefreshPending = false;
+            invalidate();
+        }
+    };
 
     public static final int STROKE = 0;
     public static final int FILL = 1;
@@ -94,18 +142,78 @@ public class RingProgressBar extends View {
         mTextIsDisplayable = mTypedArray.getBoolean(R.styleable.RingProgressBar_textIsDisplayable, defaultTextIsDisplayable);
 
         mMaxProgress = mTypedArray.getInteger(R.styleable.RingProgressBar_maxProgress, defaultMaxProgress);
+        mShowRate = mTypedArray.getBoolean(R.styleable.RingProgressBar_showRate, defaultShowRate);
 
         mTypedArray.recycle();
     }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        /**
-         * 绘制默认圆环
-         */
-        int centre = getWidth() / 2; // 获取圆心的x坐标
-        int radius = (int) (centre - mRingWidth / 2); // 圆环的半径
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        markStateDirty();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        if (mProgressModel != null) {
+            mProgressModel.addListener(mModelListener);
+            applyModelProgress(mProgressModel);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        cancelRateRefresh();
+        if (mProgressModel != null) {
+            mProgressModel.removeListener(mModelListener);
+        }
+    }
+
+    /**
+     * 应用共用进度数据上次回调时的进度，在主线程中调用，直接在当前帧刷新
+     */
+    private void applyModelProgress(ProgressModel model) {
+        mMaxProgress = model.getDispatchedMax();
+        mCurrentProgress.set(model.getDispatchedProgress());
+        invalidate();
+    }
+
+    /**
+     * 请求在下一帧刷新，可以在任意线程调用，已经请求过时不再重复请求
+     */
+    private void requestRedraw() {
+        if (mRedrawPending.compareAndSet(false, true)) {
+            postInvalidate();
+        }
+    }
+
+    /**
+     * 属性变化后标记需要重新设置画笔和边界，并刷新
+     */
+    private void markStateDirty() {
+        mStateDirty = true;
+        invalidate();
+    }
+
+    /**
+     * 如果属性有变化，重新设置画笔和边界
+     */
+    private void ensureState() {
+        if (!mStateDirty) {
+            return;
+        }
+        mStateDirty = false;
+        mSweepPath = null;
+
+        mCentre = getWidth() / 2; // 获取圆心的x坐标
+        mRadius = (int) (mCentre - mRingWidth / 2); // 圆环的半径
+        // 用于定义的圆弧的形状和大小的界限
+        mOval.set(mCentre - mRadius, mCentre - mRadius, mCentre + mRadius, mCentre + mRadius);
+
         mRingPaint.setColor(mRingColor); // 圆环颜色
         mRingPaint.setStrokeWidth(mRingWidth); // 圆环宽度
         mRingPaint.setAntiAlias(true); // 消除锯齿
@@ -114,51 +222,106 @@ public class RingProgressBar extends View {
         } else {
             mRingPaint.setStyle(Paint.Style.FILL); // 设置实心
         }
-        canvas.drawCircle(centre, centre, radius, mRingPaint); // 画出圆环
 
-        /**
-         * 绘制进度百分比
-         */
         mTextPaint.setColor(mTextColor);
         mTextPaint.setTextSize(mTextSize);
         mTextPaint.setTypeface(Typeface.DEFAULT_BOLD);
         mTextPaint.setStyle(Paint.Style.FILL);
         mTextPaint.setAntiAlias(true);
-        // 进度百分比
-        int percent = (int) (((float) mCurrentProgress / (float) mMaxProgress) * 100);
-        // 测量字体宽度
-        float textWidth = mTextPaint.measureText(percent + "%");
+        mLineHeight = mTextPaint.descent() - mTextPaint.ascent();
+
+        mProgressPaint.setStrokeWidth(mRingWidth);
+        mProgressPaint.setColor(mRingProgressColor);
+        mProgressPaint.setAntiAlias(true);
+        if (mRingProgressStyle == FILL) {
+            mProgressPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        } else {
+            mProgressPaint.setStyle(Paint.Style.STROKE);
+        }
+    }
 
-        // 绘制的起点X轴坐标：画布宽度的一半 - 文字宽度的一半
-        int baseX = (int) (canvas.getWidth() / 2 - textWidth / 2);
-        // 绘制的起点Y轴坐标：画布高度的一半 - 文字总高度的一半
-        int baseY = (int) ((canvas.getHeight() / 2) - ((mTextPaint.descent() + mTextPaint.ascent()) / 2));
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        mRedrawPending.set(false);
+        ensureState();
+        long max = mMaxProgress;
+        // 最大进度可能刚被其他线程调小，当前进度不超过最大进度
+        long current = Math.min(mCurrentProgress.get(), max);
+        // 绑定共用进度数据时直接使用它算好的比例和百分比，与绑定同一数据的其他进度条一致
+        ProgressModel model = mProgressModel;
+        // 没有绑定时比例、百分比和整数角度只在进度变化时重新计算，按整数角度绘制
+        int degree;
+        int percent;
+        if (model != null) {
+            degree = (int) (model.getFraction() * 360);
+            percent = model.getPercent();
+        } else {
+            mProgressFraction.update(current, max);
+            degree = mProgressFraction.getDegree();
+            percent = mProgressFraction.getPercent();
+        }
 
+        /**
+         * 绘制默认圆环
+         */
+        canvas.drawCircle(mCentre, mCentre, mRadius, mRingPaint); // 画出圆环
+
+        /**
+         * 绘制进度百分比
+         */
         if (mTextIsDisplayable && mRingProgressStyle == STROKE) {
-            canvas.drawText(percent + "%", baseX, baseY, mTextPaint);
+            mLabelLayout.update(mTextPaint, percent, canvas.getWidth(), canvas.getHeight());
+            if (mShowRate) {
+                // 百分比和速度各占一行，整体居中
+                canvas.drawText(mLabelLayout.label, mLabelLayout.x, mLabelLayout.y - mLineHeight / 2, mTextPaint);
+                drawRate(canvas, current, max, mLabelLayout.y + mLineHeight / 2);
+            } else {
+                canvas.drawText(mLabelLayout.label, mLabelLayout.x, mLabelLayout.y, mTextPaint);
+            }
         }
 
         /**
          * 绘制进度的圆弧
          */
-        mProgressPaint.setStrokeWidth(mRingWidth);
-        mProgressPaint.setColor(mRingProgressColor);
-        mProgressPaint.setAntiAlias(true);
-        RectF oval = new RectF(centre - radius, centre - radius, centre + radius, centre + radius); // 用于定义的圆弧的形状和大小的界限
-        switch (mRingProgressStyle) {
-            case STROKE: {
-                mProgressPaint.setStyle(Paint.Style.STROKE);
-                canvas.drawArc(oval, 270, 360 * mCurrentProgress / mMaxProgress, false, mProgressPaint); // 根据进度画圆弧
-                break;
-            }
-            case FILL: {
-                mProgressPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-                if (mCurrentProgress != 0) {
-                    canvas.drawArc(oval, 270, 360 * mCurrentProgress / mMaxProgress, true, mProgressPaint); // 根据进度画圆弧
-                }
-                break;
-            }
+        if (degree > 0 && (mRingProgressStyle == STROKE || mRingProgressStyle == FILL)) {
+            canvas.drawPath(sweepPath(degree), mProgressPaint); // 根据进度画圆弧或扇形
+        }
+    }
+
+    /**
+     * 获取当前角度的圆弧（空心）或扇形（实心）路径，角度不变时直接复用
+     */
+    private Path sweepPath(int degree) {
+        if (mSweepPath == null || degree != mSweepDegree) {
+            mSweepKey.size = getWidth();
+            mSweepKey.width = mRingWidth;
+            mSweepKey.degree = degree;
+            mSweepKey.fill = mRingProgressStyle == FILL;
+            mSweepPath = SweepPathCache.obtain(mSweepKey, mOval);
+            mSweepDegree = degree;
         }
+        return mSweepPath;
+    }
+
+    /**
+     * 采样当前进度并绘制速度和剩余时间，不创建字符串
+     */
+    private void drawRate(Canvas canvas, long current, long max, float baseY) {
+        mTransferRate.sample(current, System.nanoTime());
+        int length = mTransferRate.format(max - current, mRateText);
+        float textWidth = mTextPaint.measureText(mRateText, 0, length);
+        canvas.drawText(mRateText, 0, length, getWidth() / 2 - textWidth / 2, baseY, mTextPaint);
+        // 进度停止变化时也要让速度逐渐下降，已经安排过时不再重复post
+        if (current < max && !mRateRefreshPending) {
+            mRateRefreshPending = true;
+            postDelayed(mRateRefresh, RATE_REFRESH_INTERVAL);
+        }
+    }
+
+    private void cancelRateRefresh() {
+        removeCallbacks(mRateRefresh);
+        mRateRefreshPending = false;
     }
 
     private int dip2px(float dpValue) {
@@ -166,33 +329,110 @@ public class RingProgressBar extends View {
         return (int) (dpValue * scale + 0.5f);
     }
 
+    /**
+     * 获取当前进度，超出int范围时返回Integer.MAX_VALUE，请使用getCurrentProgressLong()
+     */
     public int getCurrentProgress() {
-        return mCurrentProgress;
+        return (int) Math.min(mCurrentProgress.get(), Integer.MAX_VALUE);
+    }
+
+    public long getCurrentProgressLong() {
+        return mCurrentProgress.get();
     }
 
     public void setCurrentProgress(int currentProgress) {
-        this.mCurrentProgress = currentProgress;
+        setCurrentProgress((long) currentProgress);
+    }
+
+    /**
+     * 设置当前进度，超过最大值时取最大值（可以在任意线程调用）
+     */
+    public void setCurrentProgress(long currentProgress) {
         if (currentProgress < 0) {
             throw new IllegalArgumentException("currentProgress not less than 0");
         }
-        if (currentProgress > mMaxProgress) {
-            currentProgress = mMaxProgress;
-        }
-        if (currentProgress <= mMaxProgress) {
-            this.mCurrentProgress = currentProgress;
-        }
-        postInvalidate();
+        mCurrentProgress.set(Math.min(currentProgress, mMaxProgress));
+        requestRedraw();
+    }
+
+    /**
+     * 增加当前进度，例如每收到一块数据时调用，超过最大值时取最大值（可以在任意线程调用）
+     */
+    public void addProgress(long delta) {
+        long max = mMaxProgress;
+        long current;
+        long next;
+        do {
+            current = mCurrentProgress.get();
+            next = Math.max(0, Math.min(max, current + delta));
+        } while (!mCurrentProgress.compareAndSet(current, next));
+        requestRedraw();
     }
 
+    /**
+     * 获取最大进度，超出int范围时返回Integer.MAX_VALUE，请使用getMaxProgressLong()
+     */
     public int getMaxProgress() {
+        return (int) Math.min(mMaxProgress, Integer.MAX_VALUE);
+    }
+
+    public long getMaxProgressLong() {
         return mMaxProgress;
     }
 
     public void setMaxProgress(int maxProgress) {
+        setMaxProgress((long) maxProgress);
+    }
+
+    /**
+     * 设置最大进度，当前进度超过新的最大值时取最大值（可以在任意线程调用）
+     */
+    public void setMaxProgress(long maxProgress) {
         if (maxProgress < 0) {
             throw new IllegalArgumentException("maxProgress not less than 0");
         }
         this.mMaxProgress = maxProgress;
+        long current;
+        do {
+            current = mCurrentProgress.get();
+        } while (current > maxProgress && !mCurrentProgress.compareAndSet(current, maxProgress));
+        requestRedraw();
+    }
+
+    /**
+     * 绑定共用的进度数据，之后当前进度和最大进度跟随数据变化，传入null解除绑定（只能在主线程调用）
+     */
+    public void setProgressModel(ProgressModel model) {
+        if (mProgressModel == model) {
+            return;
+        }
+        if (mProgressModel != null && mAttached) {
+            mProgressModel.removeListener(mModelListener);
+        }
+        mProgressModel = model;
+        if (model != null && mAttached) {
+            model.addListener(mModelListener);
+            applyModelProgress(model);
+        }
+    }
+
+    public ProgressModel getProgressModel() {
+        return mProgressModel;
+    }
+
+    public boolean isShowRate() {
+        return mShowRate;
+    }
+
+    /**
+     * 设置是否在百分比下面显示速度（字节/秒）和剩余时间
+     */
+    public void setShowRate(boolean showRate) {
+        this.mShowRate = showRate;
+        if (!showRate) {
+            cancelRateRefresh();
+        }
+        invalidate();
     }
 
     public int getRingColor() {
@@ -201,6 +441,7 @@ public class RingProgressBar extends View {
 
     public void setRingColor(int ringColor) {
         this.mRingColor = ringColor;
+        markStateDirty();
     }
 
     public float getRingWidth() {
@@ -209,6 +450,7 @@ public class RingProgressBar extends View {
 
     public void setRingWidth(float ringWidth) {
         this.mRingWidth = ringWidth;
+        markStateDirty();
     }
 
     public boolean isRingIsStroke() {
@@ -217,6 +459,7 @@ public class RingProgressBar extends View {
 
     public void setRingIsStroke(boolean ringIsStroke) {
         this.mRingIsStroke = ringIsStroke;
+        markStateDirty();
     }
 
     public int getRingProgressColor() {
@@ -225,6 +468,7 @@ public class RingProgressBar extends View {
 
     public void setRingProgressColor(int ringProgressColor) {
         this.mRingProgressColor = ringProgressColor;
+        markStateDirty();
     }
 
     public int getRingProgressStyle() {
@@ -233,6 +477,7 @@ public class RingProgressBar extends View {
 
     public void setRingProgressStyle(int ringProgressStyle) {
         this.mRingProgressStyle = ringProgressStyle;
+        markStateDirty();
     }
 
     public int getTextColor() {
@@ -241,6 +486,7 @@ public class RingProgressBar extends View {
 
     public void setTextColor(int textColor) {
         this.mTextColor = textColor;
+        markStateDirty();
     }
 
     public float getTextSize() {
@@ -249,6 +495,7 @@ public class RingProgressBar extends View {
 
     public void setTextSize(float textSize) {
         this.mTextSize = textSize;
+        markStateDirty();
     }
 
     public boolean isTextIsDisplayable() {
@@ -257,5 +504,6 @@ public class RingProgressBar extends View {
 
     public void setTextIsDisplayable(boolean textIsDisplayable) {
         this.mTextIsDisplayable = textIsDisplayable;
+        invalidate();
     }
 }
\ No newline at end of file
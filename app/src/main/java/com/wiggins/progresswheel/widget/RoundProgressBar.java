@@ -1,15 +1,18 @@
 package com.wiggins.progresswheel.widget;
 
 
+import android.animation.TimeInterpolator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Paint.Style;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Typeface;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
 import android.view.View;
 
 import com.wiggins.progresswheel.R;
@@ -26,8 +29,10 @@ public class RoundProgressBar extends View {
     private Paint mRoundPaint = new Paint();
     // 绘制字体的画笔
     private Paint mTextPaint = new Paint();
-    // 圆边界
-    private RectF mBounds;
+    // 中间的百分比文字和位置
+    private final PercentLabelLayout mLabelLayout = new PercentLabelLayout();
+    // 圆边界，写入方计算刷新区域时也会读取
+    private volatile RectF mBounds;
 
     // 圆环的宽度
     private float mRoundWidth;
@@ -59,10 +64,70 @@ public class RoundProgressBar extends View {
     // 是否显示中间进度值
     private boolean defaultTextIsShow = true;
 
-    // 进度颜色数组
-    private String[] mColors;
-    // 进度值数组
-    private float[] mRatio;
+    // 多段进度的角度和颜色，任意线程写入，绘制时取最新的快照
+    private final SegmentBuffer mSegmentBuffer = new SegmentBuffer();
+    // 是否显示多段进度
+    private volatile boolean mMultiSegment = false;
+    // 以下对象只能在synchronized (mSegmentBuffer)中使用
+    // 字符串颜色解析后的缓存
+    private int[] mPalette;
+    // 局部刷新区域
+    private final RectF mDirtyBounds = new RectF();
+    private final Rect mDirtyRect = new Rect();
+
+    // 合并后实际绘制的圆弧，数据或尺寸变化后重新生成
+    private final SegmentRuns mRuns = new SegmentRuns();
+    private boolean mRunsDirty = true;
+
+    // 多段进度变化时的过渡动画（只在主线程使用）
+    private boolean mSegmentAnimationEnabled = false;
+    private boolean mAttached = false;
+    private final SegmentTransition mTransition = new SegmentTransition();
+    private final ProgressAnimator mTransitionAnimator = new ProgressAnimator();
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(new FrameScheduler.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            boolean running = mTransitionAnimator.update(frameTimeNanos);
+            if (running) {
+                mTransition.apply(mSegmentBuffer.front(), mTransitionAnimator.getValue());
+                mFrameScheduler.schedule();
+            }
+            mRunsDirty = true;
+            invalidate();
+        }
+    });
+
+    // 绑定的共用进度数据，附加到窗口时才注册监听
+    private ProgressModel mProgressModel;
+    private final ProgressModel.OnProgressChangeListener mModelListener = new ProgressModel.OnProgressChangeListener() {
+        @Override
+        public void onProgressChanged(ProgressModel model) {
+            applyModelProgress(model);
+        }
+    };
+
+    // 点击选中的段，-1表示没有选中（只在主线程使用）
+    private int mSelectedIndex = -1;
+    private OnSegmentSelectedListener mOnSegmentSelectedListener;
+    // 当前手势是否由选择段处理（按下时落在某一段上），以及按下前选中的段，手势取消时恢复
+    private boolean mSegmentTouch = false;
+    private int mSelectedBeforeTouch = -1;
+    // 选中段的高亮画笔，叠加在原来的颜色上
+    private Paint mHighlightPaint = new Paint();
+    private int mHighlightColor = 0x66FFFFFF;
+    // 主线程计算选中段刷新区域时复用的对象
+    private final RectF mSelectionBounds = new RectF();
+    private final Rect mSelectionRect = new Rect();
+
+    /**
+     * 点击选中某一段时的回调
+     */
+    public interface OnSegmentSelectedListener {
+        /**
+         * @param index 选中的段的下标，取消选中时为-1
+         */
+        void onSegmentSelected(RoundProgressBar view, int index);
+    }
 
     public RoundProgressBar(Context context) {
         this(context, null);
@@ -88,6 +153,31 @@ public class RoundProgressBar extends View {
         mTypedArray.recycle();
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        if (mProgressModel != null) {
+            mProgressModel.addListener(mModelListener);
+            applyModelProgress(mProgressModel);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        if (mProgressModel != null) {
+            mProgressModel.removeListener(mModelListener);
+        }
+        // 不可见时没有必要继续动画，直接停在新数据上
+        mFrameScheduler.cancel();
+        if (mTransitionAnimator.isRunning()) {
+            mTransitionAnimator.end();
+            mRunsDirty = true;
+        }
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
@@ -101,6 +191,7 @@ public class RoundProgressBar extends View {
         int centre = minValue / 2; // 获取圆心的x坐标
         int radius = (int) (centre - mRoundWidth / 2); // 圆环的半径
         mBounds = new RectF(centre - radius, centre - radius, centre + radius, centre + radius);
+        mRunsDirty = true;
     }
 
     private void setupPaints() {
@@ -118,6 +209,11 @@ public class RoundProgressBar extends View {
         mProgressPaint.setStrokeWidth(mRoundWidth);
         mProgressPaint.setAntiAlias(true);
         mProgressPaint.setStyle(Style.STROKE);
+
+        mHighlightPaint.setColor(mHighlightColor);
+        mHighlightPaint.setStrokeWidth(mRoundWidth);
+        mHighlightPaint.setAntiAlias(true);
+        mHighlightPaint.setStyle(Style.STROKE);
     }
 
     @Override
@@ -126,43 +222,415 @@ public class RoundProgressBar extends View {
         // 绘制边界
         canvas.drawArc(mBounds, 0, 360, false, mRoundPaint);
 
-        // 绘制进度百分比
-        int percent = Math.round((mProgressRatio / 360) * 100);
-        // 测量字体宽度
-        float textWidth = mTextPaint.measureText(percent + "%");
-        // 绘制的起点X轴坐标：画布宽度的一半 - 文字宽度的一半
-        int baseX = (int) (canvas.getWidth() / 2 - textWidth / 2);
-        // 绘制的起点Y轴坐标：画布高度的一半 - 文字总高度的一半
-        int baseY = (int) ((canvas.getHeight() / 2) - ((mTextPaint.descent() + mTextPaint.ascent()) / 2));
-
         // 绘制进度
         float start = -90;
-        if (mRatio != null) {
-            for (int i = 0; i < mRatio.length; i++) {
-                mProgressPaint.setColor(Color.parseColor(mColors[i]));// 进度的颜色
-                canvas.drawArc(mBounds, start, mRatio[i], false, mProgressPaint);
-                start += mRatio[i];
+        acquireSegments();
+        if (mMultiSegment) {
+            SegmentList segments = drawnSegments();
+            if (mRunsDirty) {
+                buildRuns(segments);
+                mRunsDirty = false;
+            }
+            for (int i = 0; i < mRuns.size(); i++) {
+                mProgressPaint.setColor(mRuns.colorAt(i));// 进度的颜色
+                canvas.drawArc(mBounds, mRuns.startAt(i), mRuns.sweepAt(i), false, mProgressPaint);
+            }
+            // 高亮选中的段
+            if (mSelectedIndex >= 0) {
+                canvas.drawArc(mBounds, start + segments.prefix(mSelectedIndex),
+                        segments.valueAt(mSelectedIndex), false, mHighlightPaint);
             }
         } else {
             mProgressPaint.setColor(mProgressColor); // 进度的颜色
             canvas.drawArc(mBounds, start, mProgressRatio, false, mProgressPaint);
             if (mTextIsShow) {
-                canvas.drawText(percent + "%", baseX, baseY, mTextPaint);
+                // 绘制进度百分比
+                // 绑定共用进度数据时直接使用它算好的百分比，与绑定同一数据的其他进度条一致
+                ProgressModel model = mProgressModel;
+                int percent = model != null ? model.getPercent() : Math.round((mProgressRatio / 360) * 100);
+                mLabelLayout.update(mTextPaint, percent, canvas.getWidth(), canvas.getHeight());
+                canvas.drawText(mLabelLayout.label, mLabelLayout.x, mLabelLayout.y, mTextPaint);
             }
         }
     }
 
+    /**
+     * 取最新的多段进度快照，需要动画时从当前显示的样子开始过渡，选中的段已被删除时取消选中
+     */
+    private void acquireSegments() {
+        if (!mSegmentBuffer.isFresh()) {
+            return;
+        }
+        boolean animate = mSegmentAnimationEnabled && mAttached && mTransitionAnimator.getDuration() > 0;
+        if (animate) {
+            mTransition.start(drawnSegments());
+        }
+        mSegmentBuffer.acquire();
+        if (animate) {
+            mTransition.apply(mSegmentBuffer.front(), 0);
+            mTransitionAnimator.setValue(0);
+            mTransitionAnimator.animateTo(1, System.nanoTime());
+            mFrameScheduler.schedule();
+        } else if (mTransitionAnimator.isRunning()) {
+            mFrameScheduler.cancel();
+            mTransitionAnimator.end();
+        }
+        mRunsDirty = true;
+        if (mSelectedIndex >= mSegmentBuffer.front().size()) {
+            mSelectedIndex = -1;
+            if (mOnSegmentSelectedListener != null) {
+                mOnSegmentSelectedListener.onSegmentSelected(this, -1);
+            }
+        }
+    }
+
+    /**
+     * 应用共用进度数据的最新进度，在主线程中调用
+     */
+    private void applyModelProgress(ProgressModel model) {
+        float progressRatio = model.getFraction() * 360;
+        if (mProgressRatio != progressRatio) {
+            mProgressRatio = progressRatio;
+            invalidate();
+        }
+    }
+
+    /**
+     * 当前显示的多段进度：过渡中为插值结果，否则为最新的快照
+     */
+    private SegmentList drawnSegments() {
+        return mTransitionAnimator.isRunning() ? mTransition.shown() : mSegmentBuffer.front();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            mSegmentTouch = false;
+            int index = mOnSegmentSelectedListener != null && mMultiSegment && mBounds != null
+                    ? segmentAt(event.getX(), event.getY()) : -1;
+            if (index < 0) {
+                return super.onTouchEvent(event);
+            }
+            mSegmentTouch = true;
+            mSelectedBeforeTouch = mSelectedIndex;
+            selectSegment(index);
+            return true;
+        }
+        if (!mSegmentTouch) {
+            // 没有按在段上的手势交给默认处理
+            return super.onTouchEvent(event);
+        }
+        switch (action) {
+            case MotionEvent.ACTION_MOVE:
+                int index = segmentAt(event.getX(), event.getY());
+                if (index >= 0) {
+                    selectSegment(index);
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                mSegmentTouch = false;
+                performClick();
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                // 手势被父布局拦截，恢复按下前的选中状态
+                mSegmentTouch = false;
+                acquireSegments();
+                selectSegment(mSelectedBeforeTouch < mSegmentBuffer.front().size() ? mSelectedBeforeTouch : -1);
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    /**
+     * 查找触摸点所在的段：先换算成相对圆心的半径和角度，再在前缀和中二分查找，不遍历所有段（只能在主线程调用）
+     * 过渡动画中按当前显示的位置查找，正在消失的段不能选中
+     *
+     * @return 段的下标，不在圆环上或没有对应的段时返回-1
+     */
+    public int segmentAt(float x, float y) {
+        RectF bounds = mBounds;
+        if (!mMultiSegment || bounds == null) {
+            return -1;
+        }
+        acquireSegments();
+        float dx = x - bounds.centerX();
+        float dy = y - bounds.centerY();
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (Math.abs(distance - bounds.width() / 2) > mRoundWidth / 2) {
+            return -1;
+        }
+        // 起点在正上方，顺时针为正
+        float angle = (float) Math.toDegrees(Math.atan2(dy, dx)) + 90;
+        if (angle < 0) {
+            angle += 360;
+        }
+        int index = drawnSegments().indexOf(angle);
+        return index < mSegmentBuffer.front().size() ? index : -1;
+    }
+
+    /**
+     * 改变选中的段，只刷新新旧两段当前显示的区域
+     */
+    private void selectSegment(int index) {
+        if (index == mSelectedIndex) {
+            return;
+        }
+        SegmentList segments = drawnSegments();
+        mSelectionBounds.setEmpty();
+        unionSegmentBounds(segments, mSelectedIndex);
+        unionSegmentBounds(segments, index);
+        mSelectedIndex = index;
+        if (!mSelectionBounds.isEmpty()) {
+            mSelectionBounds.roundOut(mSelectionRect);
+            invalidate(mSelectionRect.left - 1, mSelectionRect.top - 1, mSelectionRect.right + 1, mSelectionRect.bottom + 1);
+        }
+        if (mOnSegmentSelectedListener != null) {
+            mOnSegmentSelectedListener.onSegmentSelected(this, index);
+        }
+    }
+
+    private void unionSegmentBounds(SegmentList segments, int index) {
+        if (index < 0 || index >= segments.size() || mBounds == null) {
+            return;
+        }
+        float start = -90 + segments.prefix(index);
+        float sweep = segments.valueAt(index);
+        ArcUtils.unionArcBounds(mSelectionBounds, mBounds,
+                start + Math.min(0, sweep), start + Math.max(0, sweep), mRoundWidth);
+    }
+
+    /**
+     * 把各段进度合并成实际绘制的圆弧，圆弧的数量不超过圆周的像素数，与段数无关
+     */
+    private void buildRuns(SegmentList segments) {
+        // 圆周上一个像素对应的角度
+        float radius = mBounds.width() / 2;
+        float minSweep = radius > 0 ? (float) (180 / (Math.PI * radius)) : 0;
+        mRuns.build(segments, -90, minSweep);
+    }
+
     private int dip2px(float dpValue) {
         final float scale = getContext().getResources().getDisplayMetrics().density;
         return (int) (dpValue * scale + 0.5f);
     }
 
+    /**
+     * 设置多段进度，颜色为"#RRGGBB"格式的字符串，只在这里解析一次（可以在任意线程调用，数组会被复制）
+     */
     public void setProgress(float[] ratio, String[] colors) {
-        this.mRatio = ratio;
-        this.mColors = colors;
+        // 复用的颜色表可能比传入的颜色多，必须在解析前检查调用方的数组，否则会用到上一次的颜色
+        if (colors.length < ratio.length) {
+            throw new IllegalArgumentException("colors length less than ratio length");
+        }
+        synchronized (mSegmentBuffer) {
+            if (mPalette == null || mPalette.length < colors.length) {
+                mPalette = new int[colors.length];
+            }
+            for (int i = 0; i < colors.length; i++) {
+                mPalette[i] = Color.parseColor(colors[i]);
+            }
+            setProgress(ratio, mPalette);
+        }
+    }
+
+    /**
+     * 设置多段进度（可以在任意线程调用，数组会被复制，之后调用方可以继续修改）
+     *
+     * @param ratio  每段进度的角度
+     * @param colors 每段进度的颜色
+     */
+    public void setProgress(float[] ratio, int[] colors) {
+        if (colors.length < ratio.length) {
+            throw new IllegalArgumentException("colors length less than ratio length");
+        }
+        synchronized (mSegmentBuffer) {
+            mSegmentBuffer.setAll(ratio, colors, ratio.length);
+            mMultiSegment = true;
+            mSegmentBuffer.publish();
+        }
         postInvalidate();
     }
 
+    /**
+     * 在末尾添加一段进度，只刷新新增的圆弧（可以在任意线程调用）
+     */
+    public void appendSegment(float ratio, int color) {
+        synchronized (mSegmentBuffer) {
+            SegmentList segments = mSegmentBuffer.working();
+            if (!mMultiSegment) {
+                mSegmentBuffer.clear();
+                mMultiSegment = true;
+                postInvalidate();
+            }
+            float start = segments.total();
+            mSegmentBuffer.add(ratio, color);
+            mSegmentBuffer.publish();
+            invalidateArc(start, start + ratio);
+        }
+    }
+
+    /**
+     * 修改某一段进度的角度，只刷新这一段以及之后移动了的圆弧（可以在任意线程调用）
+     */
+    public void updateSegment(int index, float ratio) {
+        synchronized (mSegmentBuffer) {
+            checkSegmentIndex(index);
+            SegmentList segments = mSegmentBuffer.working();
+            float oldRatio = segments.valueAt(index);
+            if (oldRatio == ratio) {
+                return;
+            }
+            float start = segments.prefix(index);
+            float oldTotal = segments.total();
+            mSegmentBuffer.set(index, ratio);
+            mSegmentBuffer.publish();
+            invalidateArc(start, Math.max(oldTotal, oldTotal - oldRatio + ratio));
+        }
+    }
+
+    /**
+     * 删除某一段进度，只刷新这一段以及之后移动了的圆弧（可以在任意线程调用）
+     */
+    public void removeSegment(int index) {
+        synchronized (mSegmentBuffer) {
+            checkSegmentIndex(index);
+            SegmentList segments = mSegmentBuffer.working();
+            float start = segments.prefix(index);
+            float oldTotal = segments.total();
+            mSegmentBuffer.remove(index);
+            mSegmentBuffer.publish();
+            invalidateArc(start, oldTotal);
+        }
+    }
+
+    public int getSegmentCount() {
+        synchronized (mSegmentBuffer) {
+            return mMultiSegment ? mSegmentBuffer.working().size() : 0;
+        }
+    }
+
+    public float getSegment(int index) {
+        synchronized (mSegmentBuffer) {
+            checkSegmentIndex(index);
+            return mSegmentBuffer.working().valueAt(index);
+        }
+    }
+
+    private void checkSegmentIndex(int index) {
+        int count = mMultiSegment ? mSegmentBuffer.working().size() : 0;
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + " out of range, count " + count);
+        }
+    }
+
+    /**
+     * 只刷新从起点开始from到to度之间的圆弧，只能在synchronized (mSegmentBuffer)中调用
+     */
+    private void invalidateArc(float from, float to) {
+        RectF bounds = mBounds;
+        if (bounds == null) {
+            return;
+        }
+        mDirtyBounds.setEmpty();
+        ArcUtils.unionArcBounds(mDirtyBounds, bounds, -90 + Math.min(from, to), -90 + Math.max(from, to), mRoundWidth);
+        mDirtyBounds.roundOut(mDirtyRect);
+        postInvalidate(mDirtyRect.left - 1, mDirtyRect.top - 1, mDirtyRect.right + 1, mDirtyRect.bottom + 1);
+    }
+
+    public OnSegmentSelectedListener getOnSegmentSelectedListener() {
+        return mOnSegmentSelectedListener;
+    }
+
+    /**
+     * 设置点击选中某一段的回调，设置后才会处理触摸事件
+     */
+    public void setOnSegmentSelectedListener(OnSegmentSelectedListener listener) {
+        this.mOnSegmentSelectedListener = listener;
+    }
+
+    /**
+     * 获取选中的段，没有选中时返回-1（只能在主线程调用）
+     */
+    public int getSelectedSegment() {
+        return mSelectedIndex;
+    }
+
+    /**
+     * 选中某一段，-1表示取消选中（只能在主线程调用）
+     */
+    public void setSelectedSegment(int index) {
+        acquireSegments();
+        if (index < -1 || index >= mSegmentBuffer.front().size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of range, count " + mSegmentBuffer.front().size());
+        }
+        selectSegment(index);
+    }
+
+    public boolean isSegmentAnimationEnabled() {
+        return mSegmentAnimationEnabled;
+    }
+
+    /**
+     * 设置多段进度变化时是否以动画过渡（默认不使用）
+     */
+    public void setSegmentAnimationEnabled(boolean enabled) {
+        this.mSegmentAnimationEnabled = enabled;
+    }
+
+    public long getSegmentAnimationDuration() {
+        return mTransitionAnimator.getDuration();
+    }
+
+    public void setSegmentAnimationDuration(long duration) {
+        mTransitionAnimator.setDuration(duration);
+    }
+
+    public TimeInterpolator getSegmentAnimationInterpolator() {
+        return mTransitionAnimator.getInterpolator();
+    }
+
+    public void setSegmentAnimationInterpolator(TimeInterpolator interpolator) {
+        mTransitionAnimator.setInterpolator(interpolator);
+    }
+
+    public int getHighlightColor() {
+        return mHighlightColor;
+    }
+
+    public void setHighlightColor(int highlightColor) {
+        this.mHighlightColor = highlightColor;
+        mHighlightPaint.setColor(highlightColor);
+        invalidate();
+    }
+
+    /**
+     * 绑定共用的进度数据，之后单百分比进度跟随数据变化，传入null解除绑定（只能在主线程调用）
+     */
+    public void setProgressModel(ProgressModel model) {
+        if (mProgressModel == model) {
+            return;
+        }
+        if (mProgressModel != null && mAttached) {
+            mProgressModel.removeListener(mModelListener);
+        }
+        mProgressModel = model;
+        if (model != null && mAttached) {
+            model.addListener(mModelListener);
+            applyModelProgress(model);
+        }
+    }
+
+    public ProgressModel getProgressModel() {
+        return mProgressModel;
+    }
+
     public float getProgressRatio() {
         return mProgressRatio;
     }
@@ -0,0 +1,157 @@
+package com.wiggins.progresswheel.widget;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description 多段进度数据的三缓冲：写入方（任意线程，互相之间加锁）通过这里的方法修改工作副本，
+ * 发布时只把后台缓冲区缺少的修改重放一遍再交换，绘制线程不加锁地取走最新发布的快照，取到的快照在下次取之前不会被修改。
+ * 修改一段的代价仍是O(log n)；只有后台缓冲区落后超过修改记录的容量（例如绘制线程刚还回一个很旧的快照）
+ * 或者整体替换过数据时才完整复制一次，也就是每帧最多一次。
+ * 三个缓冲区循环使用，数据量不再增长后不会创建任何对象
+ * @Author 一花一世界
+ */
+final class SegmentBuffer {
+
+    // 发布状态的低两位是中间缓冲区的下标，FRESH表示绘制线程还没有取走
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    // 修改记录的容量
+    private static final int LOG_SIZE = 256;
+    private static final int OP_ADD = 0;
+    private static final int OP_SET = 1;
+    private static final int OP_SET_COLOR = 2;
+    private static final int OP_REMOVE = 3;
+    private static final int OP_CLEAR = 4;
+
+    private final SegmentList[] mBuffers = {new SegmentList(), new SegmentList(), new SegmentList()};
+    // 以下只能在持有锁时访问：工作副本、后台缓冲区、每个缓冲区对应的版本以及最近的修改记录
+    private final SegmentList mWorking = new SegmentList();
+    private int mBackIndex = 0;
+    private final long[] mVersions = new long[3];
+    private long mVersion = 0;
+    // 最近一次整体替换后的版本，早于它的缓冲区只能完整复制
+    private long mResetVersion = 0;
+    private final int[] mOps = new int[LOG_SIZE];
+    private final int[] mOpIndexes = new int[LOG_SIZE];
+    private final float[] mOpValues = new float[LOG_SIZE];
+    private final int[] mOpColors = new int[LOG_SIZE];
+    // 唯一的发布点
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+    // 绘制线程正在使用的缓冲区
+    private int mFrontIndex = 2;
+
+    /**
+     * 写入方的工作副本，只读，只能在synchronized (this)中访问
+     */
+    SegmentList working() {
+        return mWorking;
+    }
+
+    /**
+     * 以下修改方法只能在synchronized (this)中调用，修改后调用publish()
+     */
+    void setAll(float[] values, int[] colors, int count) {
+        mWorking.setAll(values, colors, count);
+        mVersion++;
+        mResetVersion = mVersion;
+    }
+
+    void add(float value, int color) {
+        mWorking.add(value, color);
+        record(OP_ADD, 0, value, color);
+    }
+
+    void set(int index, float value) {
+        mWorking.set(index, value);
+        record(OP_SET, index, value, 0);
+    }
+
+    void setColor(int index, int color) {
+        mWorking.setColor(index, color);
+        record(OP_SET_COLOR, index, 0, color);
+    }
+
+    void remove(int index) {
+        mWorking.remove(index);
+        record(OP_REMOVE, index, 0, 0);
+    }
+
+    void clear() {
+        mWorking.clear();
+        record(OP_CLEAR, 0, 0, 0);
+    }
+
+    /**
+     * 发布工作副本，只能在synchronized (this)中调用
+     */
+    void publish() {
+        SegmentList back = mBuffers[mBackIndex];
+        long version = mVersions[mBackIndex];
+        if (version < mResetVersion || mVersion - version > LOG_SIZE) {
+            back.copyFrom(mWorking);
+        } else {
+            for (; version < mVersion; version++) {
+                replay(back, (int) (version % LOG_SIZE));
+            }
+        }
+        mVersions[mBackIndex] = mVersion;
+        mBackIndex = mMiddle.getAndSet(mBackIndex | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * 是否有绘制线程还没有取走的快照，只有绘制线程会取走快照，所以返回true后acquire()一定会换成新的快照
+     */
+    boolean isFresh() {
+        return (mMiddle.get() & FRESH) != 0;
+    }
+
+    /**
+     * 绘制线程取最新发布的快照
+     *
+     * @return 是否换成了新的快照
+     */
+    boolean acquire() {
+        if ((mMiddle.get() & FRESH) == 0) {
+            return false;
+        }
+        mFrontIndex = mMiddle.getAndSet(mFrontIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * 绘制线程当前持有的快照，只读
+     */
+    SegmentList front() {
+        return mBuffers[mFrontIndex];
+    }
+
+    private void record(int op, int index, float value, int color) {
+        int slot = (int) (mVersion % LOG_SIZE);
+        mOps[slot] = op;
+        mOpIndexes[slot] = index;
+        mOpValues[slot] = value;
+        mOpColors[slot] = color;
+        mVersion++;
+    }
+
+    private void replay(SegmentList list, int slot) {
+        switch (mOps[slot]) {
+            case OP_ADD:
+                list.add(mOpValues[slot], mOpColors[slot]);
+                break;
+            case OP_SET:
+                list.set(mOpIndexes[slot], mOpValues[slot]);
+                break;
+            case OP_SET_COLOR:
+                list.setColor(mOpIndexes[slot], mOpColors[slot]);
+                break;
+            case OP_REMOVE:
+                list.remove(mOpIndexes[slot]);
+                break;
+            case OP_CLEAR:
+                list.clear();
+                break;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.wiggins.progresswheel.widget;
+
+/**
+ * @Description 多段进度的数据：每段的角度和颜色，用树状数组维护前缀和，
+ * 修改某一段或查询某一段的起始角度都是O(log n)
+ * @Author 一花一世界
+ */
+final class SegmentList {
+
+    private float[] mValues = new float[0];
+    private int[] mColors = new int[0];
+    // 树状数组，下标从1开始
+    private float[] mTree = new float[1];
+    private int mCount = 0;
+
+    int size() {
+        return mCount;
+    }
+
+    float valueAt(int index) {
+        return mValues[index];
+    }
+
+    int colorAt(int index) {
+        return mColors[index];
+    }
+
+    /**
+     * 替换全部数据
+     */
+    void setAll(float[] values, int[] colors, int count) {
+        ensureCapacity(count);
+        System.arraycopy(values, 0, mValues, 0, count);
+        System.arraycopy(colors, 0, mColors, 0, count);
+        mCount = count;
+        rebuildTree();
+    }
+
+    /**
+     * 复制另一份数据
+     */
+    void copyFrom(SegmentList other) {
+        ensureCapacity(other.mCount);
+        System.arraycopy(other.mValues, 0, mValues, 0, other.mCount);
+        System.arraycopy(other.mColors, 0, mColors, 0, other.mCount);
+        System.arraycopy(other.mTree, 0, mTree, 0, other.mCount + 1);
+        mCount = other.mCount;
+    }
+
+    void clear() {
+        mCount = 0;
+    }
+
+    /**
+     * 在末尾添加一段
+     */
+    void add(float value, int color) {
+        if (mCount == mValues.length) {
+            ensureCapacity(mCount * 2 + 1);
+        }
+        mValues[mCount] = value;
+        mColors[mCount] = color;
+        mCount++;
+        // 新节点的值等于它覆盖的区间之和
+        int node = mCount;
+        float sum = value;
+        int lowest = node & -node;
+        for (int child = node - 1; child > node - lowest; child -= child & -child) {
+            sum += mTree[child];
+        }
+        mTree[node] = sum;
+    }
+
+    /**
+     * 修改某一段的角度
+     */
+    void set(int index, float value) {
+        float delta = value - mValues[index];
+        mValues[index] = value;
+        for (int node = index + 1; node <= mCount; node += node & -node) {
+            mTree[node] += delta;
+        }
+    }
+
+    void setColor(int index, int color) {
+        mColors[index] = color;
+    }
+
+    /**
+     * 删除某一段，后面的段前移
+     */
+    void remove(int index) {
+        int moved = mCount - index - 1;
+        if (moved > 0) {
+            System.arraycopy(mValues, index + 1, mValues, index, moved);
+            System.arraycopy(mColors, index + 1, mColors, index, moved);
+        }
+        mCount--;
+        rebuildTree();
+    }
+
+    /**
+     * 前index段的角度之和，即第index段的起始角度（相对于起点）
+     */
+    float prefix(int index) {
+        float sum = 0;
+        for (int node = index; node > 0; node -= node & -node) {
+            sum += mTree[node];
+        }
+        return sum;
+    }
+
+    float total() {
+        return prefix(mCount);
+    }
+
+    /**
+     * 查找覆盖给定角度（相对于起点）的段，要求各段角度都不为负
+     *
+     * @return 段的下标，超出总角度时返回-1
+     */
+    int indexOf(float angle) {
+        if (angle < 0) {
+            return -1;
+        }
+        int node = 0;
+        float remaining = angle;
+        for (int step = Integer.highestOneBit(Math.max(mCount, 1)); step > 0; step >>= 1) {
+            int next = node + step;
+            if (next <= mCount && mTree[next] <= remaining) {
+                node = next;
+                remaining -= mTree[next];
+            }
+        }
+        return node < mCount ? node : -1;
+    }
+
+    private void rebuildTree() {
+        for (int i = 1; i <= mCount; i++) {
+            mTree[i] = mValues[i - 1];
+        }
+        for (int i = 1; i <= mCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= mCount) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mValues.length >= capacity) {
+            return;
+        }
+        float[] values = new float[capacity];
+        int[] colors = new int[capacity];
+        float[] tree = new float[capacity + 1];
+        System.arraycopy(mValues, 0, values, 0, mCount);
+        System.arraycopy(mColors, 0, colors, 0, mCount);
+        System.arraycopy(mTree, 0, tree, 0, mCount + 1);
+        mValues = values;
+        mColors = colors;
+        mTree = tree;
+    }
+}
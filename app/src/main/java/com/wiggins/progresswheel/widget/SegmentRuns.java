@@ -0,0 +1,97 @@
+package com.wiggins.progresswheel.widget;
+
+/**
+ * @Description 多段进度实际绘制的圆弧：相邻同色的段合并，不足一个像素的段累积到满一个像素为止，
+ * 颜色取累积过程中占比最大的颜色。圆弧的数量不超过圆周的像素数，与段数无关，数组在重新生成之间复用
+ * @Author 一花一世界
+ */
+final class SegmentRuns {
+
+    private float[] mStart = new float[0];
+    private float[] mSweep = new float[0];
+    private int[] mColor = new int[0];
+    // 当前颜色相对于其他颜色多出的角度，按多数投票决定未满一个像素的圆弧的颜色
+    private float[] mColorWeight = new float[0];
+    private int mCount = 0;
+
+    int size() {
+        return mCount;
+    }
+
+    float startAt(int index) {
+        return mStart[index];
+    }
+
+    float sweepAt(int index) {
+        return mSweep[index];
+    }
+
+    int colorAt(int index) {
+        return mColor[index];
+    }
+
+    /**
+     * 按各段进度重新生成圆弧
+     *
+     * @param startAngle 第一段的起始角度
+     * @param minSweep   一个像素对应的角度，不足这个角度的圆弧会继续累积后面的段
+     */
+    void build(SegmentList segments, float startAngle, float minSweep) {
+        int count = segments.size();
+        ensureCapacity(Math.min(count, (int) Math.ceil(360 / Math.max(minSweep, 0.01f)) * 2 + 1));
+        mCount = 0;
+        boolean contiguous = false;
+        for (int i = 0; i < count; i++) {
+            float sweep = segments.valueAt(i);
+            int color = segments.colorAt(i);
+            if (sweep <= 0) {
+                // 空的段不绘制，负值的段会让后面的段与前一段不再相连
+                contiguous = contiguous && sweep == 0;
+                continue;
+            }
+            int last = contiguous ? mCount - 1 : -1;
+            if (last >= 0 && (mColor[last] == color || mSweep[last] < minSweep)) {
+                // 同色，或前一段还不足一个像素，并入前一段
+                mSweep[last] += sweep;
+                if (mColor[last] == color) {
+                    mColorWeight[last] += sweep;
+                } else {
+                    mColorWeight[last] -= sweep;
+                    if (mColorWeight[last] < 0) {
+                        mColor[last] = color;
+                        mColorWeight[last] = -mColorWeight[last];
+                    }
+                }
+            } else {
+                if (mCount == mStart.length) {
+                    ensureCapacity(mCount * 2 + 1);
+                }
+                // 起始角度直接取前缀和，不再逐段累加
+                mStart[mCount] = startAngle + segments.prefix(i);
+                mSweep[mCount] = sweep;
+                mColor[mCount] = color;
+                mColorWeight[mCount] = sweep;
+                mCount++;
+            }
+            contiguous = true;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mStart.length >= capacity) {
+            return;
+        }
+        float[] start = new float[capacity];
+        float[] sweep = new float[capacity];
+        int[] color = new int[capacity];
+        float[] colorWeight = new float[capacity];
+        System.arraycopy(mStart, 0, start, 0, mCount);
+        System.arraycopy(mSweep, 0, sweep, 0, mCount);
+        System.arraycopy(mColor, 0, color, 0, mCount);
+        System.arraycopy(mColorWeight, 0, colorWeight, 0, mCount);
+        mStart = start;
+        mSweep = sweep;
+        mColor = color;
+        mColorWeight = colorWeight;
+    }
+}
@@ -0,0 +1,55 @@
+package com.wiggins.progresswheel.widget;
+
+/**
+ * @Description 多段进度从旧数据到新数据的过渡：按下标对应，逐段插值角度并混合颜色，
+ * 新增的段从0开始增长，删除的段缩小到0。所有数组在过渡之间复用，每帧不创建对象
+ * @Author 一花一世界
+ */
+final class SegmentTransition {
+
+    // 过渡的起点
+    private final SegmentList mFrom = new SegmentList();
+    // 当前帧的结果
+    private final SegmentList mShown = new SegmentList();
+    // 计算当前帧时使用的临时数组
+    private float[] mValues = new float[0];
+    private int[] mColors = new int[0];
+
+    /**
+     * 以给定的数据作为起点开始新的过渡，可以传入shown()从正在显示的样子继续过渡
+     */
+    void start(SegmentList from) {
+        mFrom.copyFrom(from);
+    }
+
+    /**
+     * 计算过渡到fraction时的数据，结果通过shown()获取
+     *
+     * @param to       过渡的终点
+     * @param fraction 0为起点，1为终点
+     */
+    void apply(SegmentList to, float fraction) {
+        int fromCount = mFrom.size();
+        int toCount = to.size();
+        int count = Math.max(fromCount, toCount);
+        if (mValues.length < count) {
+            mValues = new float[count];
+            mColors = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            boolean hasFrom = i < fromCount;
+            boolean hasTo = i < toCount;
+            float fromValue = hasFrom ? mFrom.valueAt(i) : 0;
+            float toValue = hasTo ? to.valueAt(i) : 0;
+            int fromColor = hasFrom ? mFrom.colorAt(i) : to.colorAt(i);
+            int toColor = hasTo ? to.colorAt(i) : fromColor;
+            mValues[i] = fromValue + (toValue - fromValue) * fraction;
+            mColors[i] = ColorUtils.blend(fromColor, toColor, fraction);
+        }
+        mShown.setAll(mValues, mColors, count);
+    }
+
+    SegmentList shown() {
+        return mShown;
+    }
+}
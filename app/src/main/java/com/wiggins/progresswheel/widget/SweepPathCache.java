@@ -0,0 +1,97 @@
+package com.wiggins.progresswheel.widget;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * @Description 进度圆弧（空心）和扇形（实心）的路径，按尺寸、圆环宽度和整数角度缓存，
+ * 尺寸相同的进度条共用，只保留在一个有上限的缓存中（只能在主线程使用）
+ * @Author 一花一世界
+ */
+final class SweepPathCache {
+
+    // 缓存的最大数量，足够同一尺寸的一种风格覆盖0~360度
+    static final int MAX_CACHE_SIZE = 400;
+
+    private static final BoundedCache<Key, Path> sCache = new BoundedCache<Key, Path>(MAX_CACHE_SIZE);
+
+    private SweepPathCache() {
+    }
+
+    /**
+     * 获取与给定属性对应的路径，路径创建后不能再修改
+     *
+     * @param probe 查询用的属性，找不到时会复制一份作为键，调用方可以继续复用
+     * @param oval  与probe中的尺寸和宽度对应的圆弧边界，只在创建路径时使用
+     */
+    static Path obtain(Key probe, RectF oval) {
+        Path path = sCache.get(probe);
+        if (path == null) {
+            path = createPath(oval, probe.degree, probe.fill);
+            sCache.put(new Key(probe), path);
+        }
+        return path;
+    }
+
+    /**
+     * 从正上方开始顺时针的圆弧或扇形
+     */
+    private static Path createPath(RectF oval, int degree, boolean fill) {
+        Path path = new Path();
+        if (degree >= 360) {
+            // 360度的arcTo和addArc会被当作0度
+            path.addOval(oval, Path.Direction.CW);
+        } else if (fill) {
+            path.moveTo(oval.centerX(), oval.centerY());
+            path.arcTo(oval, 270, degree, false);
+            path.close();
+        } else {
+            path.addArc(oval, 270, degree);
+        }
+        return path;
+    }
+
+    /**
+     * 路径的键，包含所有影响路径的属性
+     */
+    static final class Key {
+        int size;
+        float width;
+        int degree;
+        boolean fill;
+
+        Key() {
+        }
+
+        Key(Key other) {
+            size = other.size;
+            width = other.width;
+            degree = other.degree;
+            fill = other.fill;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return size == other.size
+                    && Float.compare(width, other.width) == 0
+                    && degree == other.degree
+                    && fill == other.fill;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = size;
+            result = 31 * result + Float.floatToIntBits(width);
+            result = 31 * result + degree;
+            result = 31 * result + (fill ? 1 : 0);
+            return result;
+        }
+    }
+}
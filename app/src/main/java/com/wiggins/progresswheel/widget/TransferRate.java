@@ -0,0 +1,159 @@
+package com.wiggins.progresswheel.widget;
+
+/**
+ * @Description 传输速度估算：按时间加权的指数移动平均（EWMA），采样间隔不固定也能得到平滑的速度，
+ * 并可以把速度和剩余时间格式化到字符数组中（不创建字符串）
+ * @Author 一花一世界
+ */
+final class TransferRate {
+
+    // 平滑的时间常数（纳秒），越大越平滑
+    private static final double TIME_CONSTANT_NANOS = 1000000000.0;
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+    private static final char[][] UNITS = {
+            "B/s".toCharArray(), "KB/s".toCharArray(), "MB/s".toCharArray(), "GB/s".toCharArray(), "TB/s".toCharArray()
+    };
+    private static final char[] UNKNOWN_ETA = "--:--".toCharArray();
+    // 剩余时间的上限（秒）
+    private static final long MAX_ETA_SECONDS = 99 * 3600 + 59 * 60 + 59;
+
+    private boolean mHasSample = false;
+    private long mLastValue;
+    private long mLastTime;
+    private boolean mHasRate = false;
+    private double mRate;
+
+    /**
+     * 清除之前的采样，例如开始新的传输时
+     */
+    void reset() {
+        mHasSample = false;
+        mHasRate = false;
+        mRate = 0;
+    }
+
+    /**
+     * 加入一次采样
+     *
+     * @param value     当前的累计值（字节）
+     * @param timeNanos 采样时间（纳秒）
+     */
+    void sample(long value, long timeNanos) {
+        if (!mHasSample || value < mLastValue) {
+            // 第一次采样或进度倒退，重新开始
+            reset();
+            mHasSample = true;
+            mLastValue = value;
+            mLastTime = timeNanos;
+            return;
+        }
+        long elapsed = timeNanos - mLastTime;
+        if (elapsed <= 0) {
+            return;
+        }
+        double instant = (value - mLastValue) * NANOS_PER_SECOND / elapsed;
+        if (mHasRate) {
+            double alpha = 1 - Math.exp(-elapsed / TIME_CONSTANT_NANOS);
+            mRate += alpha * (instant - mRate);
+        } else {
+            mRate = instant;
+            mHasRate = true;
+        }
+        mLastValue = value;
+        mLastTime = timeNanos;
+    }
+
+    boolean hasRate() {
+        return mHasRate;
+    }
+
+    /**
+     * 平滑后的速度（字节/秒）
+     */
+    double getRate() {
+        return mRate;
+    }
+
+    /**
+     * 按当前速度估算剩余时间（秒），速度未知或为0时返回-1
+     */
+    long etaSeconds(long remaining) {
+        if (remaining <= 0) {
+            return 0;
+        }
+        if (!mHasRate || mRate <= 0) {
+            return -1;
+        }
+        double seconds = Math.ceil(remaining / mRate);
+        return seconds >= MAX_ETA_SECONDS ? MAX_ETA_SECONDS : (long) seconds;
+    }
+
+    /**
+     * 把"速度 剩余时间"写入dst，例如"1.5 MB/s 3:07"，dst的长度至少为32
+     *
+     * @return 写入的字符数
+     */
+    int format(long remaining, char[] dst) {
+        int length = formatRate(mHasRate ? mRate : 0, dst, 0);
+        dst[length++] = ' ';
+        return formatEta(etaSeconds(remaining), dst, length);
+    }
+
+    /**
+     * 格式化速度，小于10时保留一位小数
+     */
+    static int formatRate(double bytesPerSecond, char[] dst, int offset) {
+        double value = Math.max(0, bytesPerSecond);
+        int unit = 0;
+        while (value >= 1000 && unit < UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        long tenths = Math.round(value * 10);
+        if (tenths < 100) {
+            offset = appendNumber(dst, offset, tenths / 10, 1);
+            dst[offset++] = '.';
+            dst[offset++] = (char) ('0' + tenths % 10);
+        } else {
+            offset = appendNumber(dst, offset, Math.round(value), 1);
+        }
+        dst[offset++] = ' ';
+        char[] unitChars = UNITS[unit];
+        System.arraycopy(unitChars, 0, dst, offset, unitChars.length);
+        return offset + unitChars.length;
+    }
+
+    /**
+     * 格式化剩余时间，格式为"m:ss"或"h:mm:ss"，未知时为"--:--"
+     */
+    static int formatEta(long seconds, char[] dst, int offset) {
+        if (seconds < 0) {
+            System.arraycopy(UNKNOWN_ETA, 0, dst, offset, UNKNOWN_ETA.length);
+            return offset + UNKNOWN_ETA.length;
+        }
+        long hours = seconds / 3600;
+        long minutes = (seconds / 60) % 60;
+        if (hours > 0) {
+            offset = appendNumber(dst, offset, hours, 1);
+            dst[offset++] = ':';
+            offset = appendNumber(dst, offset, minutes, 2);
+        } else {
+            offset = appendNumber(dst, offset, minutes, 1);
+        }
+        dst[offset++] = ':';
+        return appendNumber(dst, offset, seconds % 60, 2);
+    }
+
+    private static int appendNumber(char[] dst, int offset, long value, int minDigits) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            dst[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+}
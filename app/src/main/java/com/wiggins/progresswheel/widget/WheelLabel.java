@@ -0,0 +1,109 @@
+package com.wiggins.progresswheel.widget;
+
+import android.graphics.Paint;
+
+/**
+ * @Description ProgressWheel中间的文字：百分比或按行拆分的自定义文字，以及每行的水平偏移量
+ * 百分比的文字和宽度都取自预先生成的文字表，每帧更新百分比时不产生新的对象（只能在主线程使用）
+ * @Author 一花一世界
+ */
+final class WheelLabel {
+
+    String text = "";
+    String[] lines = new String[1];
+    float[] offsets = new float[1];//每行文字的水平偏移量
+    int lineCount = 0;//文字行数
+    int percent = -1;//当前显示的百分比，-1表示显示的是自定义文字
+
+    /**
+     * 进度（0~360）对应的百分比
+     */
+    static int percentOf(float progress) {
+        return Math.round((progress / 360) * 100);
+    }
+
+    /**
+     * 显示百分比文字，文字和宽度都取自预先生成的文字表
+     *
+     * @return 文字是否有变化
+     */
+    boolean setPercent(int percent, PercentLabels labels) {
+        if (this.percent == percent) {
+            return false;
+        }
+        this.percent = percent;
+        text = PercentLabels.label(percent);
+        lines[0] = text;
+        lineCount = 1;
+        offsets[0] = labels.width(percent) / 2;
+        return true;
+    }
+
+    /**
+     * 显示自定义文字，按换行符拆分，需要之后调用measure()计算偏移量
+     */
+    void setText(String text) {
+        this.text = text;
+        percent = -1;
+        splitLines(text);
+    }
+
+    /**
+     * 画笔变化后重新计算每行文字的水平偏移量
+     */
+    void measure(PercentLabels labels, Paint paint) {
+        if (percent >= 0) {
+            offsets[0] = labels.width(percent) / 2;
+            return;
+        }
+        for (int i = 0; i < lineCount; i++) {
+            offsets[i] = paint.measureText(lines[i]) / 2;
+        }
+    }
+
+    /**
+     * 最宽一行的一半
+     */
+    float maxOffset() {
+        float maxOffset = 0;
+        for (int i = 0; i < lineCount; i++) {
+            maxOffset = Math.max(maxOffset, offsets[i]);
+        }
+        return maxOffset;
+    }
+
+    /**
+     * 按换行符拆分文字（不使用正则），与String.split("\n")一样去掉末尾的空行
+     */
+    private void splitLines(String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        ensureLineCapacity(count);
+
+        lineCount = 0;
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            lines[lineCount++] = text.substring(start, end);
+            start = end + 1;
+        }
+        lines[lineCount++] = text.substring(start);
+
+        if (text.length() > 0) {
+            while (lineCount > 0 && lines[lineCount - 1].length() == 0) {
+                lines[--lineCount] = null;
+            }
+        }
+    }
+
+    private void ensureLineCapacity(int count) {
+        if (lines.length < count) {
+            lines = new String[count];
+            offsets = new float[count];
+        }
+    }
+}
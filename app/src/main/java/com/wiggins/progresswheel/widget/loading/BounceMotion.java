@@ -0,0 +1,110 @@
+package com.wiggins.progresswheel.widget.loading;
+
+/**
+ * @Description LoadingView弹跳的状态机：下落和上抛交替进行，按帧时间算出当前阶段的比例和各属性的值，
+ * 所有状态都是基本类型，每帧不创建对象。阶段结束后由调用方决定下一个阶段（下落结束时先变换形状再上抛）
+ * @Author 一花一世界
+ */
+final class BounceMotion {
+
+    static final int PHASE_IDLE = 0;
+    static final int PHASE_DOWN = 1;
+    static final int PHASE_UP = 2;
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final long mDurationNanos;
+    private int mPhase = PHASE_IDLE;
+    // 当前阶段开始的帧时间（纳秒），-1表示在下一帧开始
+    private long mPhaseStartTime = -1;
+    // 当前阶段已经完成的比例，暂停后从这里继续
+    private float mFraction;
+    // 本次上抛要旋转到的角度，取决于形状
+    private float mRotationTarget;
+
+    // 最近一帧的结果，rotation只在上抛时变化
+    float translationY;
+    float rotation;
+    float indicationScaleX = 1;
+
+    BounceMotion(long durationMillis) {
+        this.mDurationNanos = durationMillis * NANOS_PER_MILLI;
+    }
+
+    int getPhase() {
+        return mPhase;
+    }
+
+    float getFraction() {
+        return mFraction;
+    }
+
+    /**
+     * 开始新的阶段，在下一帧从头开始
+     *
+     * @param rotationTarget 上抛时要旋转到的角度，下落时忽略
+     */
+    void start(int phase, float rotationTarget) {
+        mPhase = phase;
+        mPhaseStartTime = -1;
+        mFraction = 0;
+        if (phase == PHASE_UP) {
+            mRotationTarget = rotationTarget;
+        }
+    }
+
+    /**
+     * 暂停后恢复，在下一帧从暂停时的比例继续
+     */
+    void resume() {
+        mPhaseStartTime = -1;
+    }
+
+    /**
+     * 按帧时间更新当前阶段
+     *
+     * @param distance 下落的距离
+     * @param factor   加速和减速插值的系数
+     * @return 当前阶段是否已经结束
+     */
+    boolean update(long frameTimeNanos, float distance, float factor) {
+        if (mPhase == PHASE_IDLE) {
+            return false;
+        }
+        if (mPhaseStartTime < 0) {
+            mPhaseStartTime = frameTimeNanos - (long) (mFraction * mDurationNanos);
+        }
+        float fraction = Math.min(1, (float) (frameTimeNanos - mPhaseStartTime) / mDurationNanos);
+        mFraction = fraction;
+        if (mPhase == PHASE_DOWN) {
+            translationY = distance * accelerate(fraction, factor);
+            indicationScaleX = 1 + (0.2f - 1) * accelerateDecelerate(fraction);
+        } else {
+            float decelerate = decelerate(fraction, factor);
+            translationY = distance + (0 - distance) * decelerate;
+            rotation = mRotationTarget * decelerate;
+            indicationScaleX = 0.2f + (1 - 0.2f) * accelerateDecelerate(fraction);
+        }
+        return fraction >= 1;
+    }
+
+    /**
+     * 与AccelerateInterpolator(factor)相同
+     */
+    static float accelerate(float input, float factor) {
+        return factor == 1.0f ? input * input : (float) Math.pow(input, 2 * factor);
+    }
+
+    /**
+     * 与DecelerateInterpolator(factor)相同
+     */
+    static float decelerate(float input, float factor) {
+        return factor == 1.0f ? 1 - (1 - input) * (1 - input) : (float) (1 - Math.pow(1 - input, 2 * factor));
+    }
+
+    /**
+     * 与AccelerateDecelerateInterpolator相同（属性动画的默认插值器）
+     */
+    static float accelerateDecelerate(float input) {
+        return (float) (Math.cos((input + 1) * Math.PI) / 2) + 0.5f;
+    }
+}
@@ -1,8 +1,5 @@
 package com.wiggins.progresswheel.widget.loading;
 
-import android.animation.Animator;
-import android.animation.AnimatorSet;
-import android.animation.ObjectAnimator;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
@@ -13,13 +10,13 @@ import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.animation.AccelerateInterpolator;
-import android.view.animation.DecelerateInterpolator;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.wiggins.progresswheel.R;
+import com.wiggins.progresswheel.widget.AppVisibility;
+import com.wiggins.progresswheel.widget.FrameScheduler;
 
 /**
  * @Description 自定义loadingView
@@ -28,6 +25,9 @@ import com.wiggins.progresswheel.R;
 public class LoadingView extends FrameLayout {
 
     private static final int ANIMATION_DURATION = 500;
+    // 第一次和之后每次从静止开始弹跳前的延迟（毫秒）
+    private static final long FIRST_START_DELAY = 900;
+    private static final long START_DELAY = 200;
     private static float mDistance = 200;
     public float factor = 1.2f;
 
@@ -37,8 +37,29 @@ public class LoadingView extends FrameLayout {
     private int mTextAppearance;
 
     private String mLoadText;
-    private AnimatorSet mUpAnimatorSet;
-    private AnimatorSet mDownAnimatorSet;
+
+    // 弹跳动画的状态：上抛和下落交替进行，由同一个帧回调驱动
+    private final BounceMotion mBounce = new BounceMotion(ANIMATION_DURATION);
+
+    // 填充完布局后才需要弹跳
+    private boolean mLoadingRequested = false;
+    private long mStartDelay = FIRST_START_DELAY;
+    // 是否允许调度回调：已附加、自身和所有父View可见、窗口可见且没有失去焦点、进程在前台
+    private boolean mRunning = false;
+    private boolean mAttached = false;
+    private boolean mWindowFocusLost = false;
+    private final AppVisibility.OnAppVisibilityChangeListener mAppVisibilityListener = new AppVisibility.OnAppVisibilityChangeListener() {
+        @Override
+        public void onAppVisibilityChanged(boolean foreground) {
+            updateRunning();
+        }
+    };
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(new FrameScheduler.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            updateBounce(frameTimeNanos);
+        }
+    });
 
     public LoadingView(Context context) {
         super(context);
@@ -90,71 +111,86 @@ public class LoadingView extends FrameLayout {
         }
         setLoadingText(mLoadText);
         addView(view, layoutParams);
-        startLoading(900);
+        mLoadingRequested = true;
+        updateRunning();
     }
 
-    private AnimatorSet mAnimatorSet = null;
-
     private Runnable mFreeFallRunnable = new Runnable() {
         @Override
         public void run() {
+            mStartDelay = START_DELAY;
             freeFall();
         }
     };
 
-    private void startLoading(long delay) {
-        if (mDownAnimatorSet != null && mDownAnimatorSet.isRunning()) {
-            return;
-        }
-        this.removeCallbacks(mFreeFallRunnable);
-        if (delay > 0) {
-            this.postDelayed(mFreeFallRunnable, delay);
-        } else {
-            this.post(mFreeFallRunnable);
-        }
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        AppVisibility.register(getContext());
+        AppVisibility.addListener(mAppVisibilityListener);
+        updateRunning();
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        stopLoading();
+        mAttached = false;
+        AppVisibility.removeListener(mAppVisibilityListener);
+        updateRunning();
     }
 
-    private void stopLoading() {
-        if (mAnimatorSet != null) {
-            if (mAnimatorSet.isRunning()) {
-                mAnimatorSet.cancel();
-            }
-            mAnimatorSet = null;
-        }
-        if (mUpAnimatorSet != null) {
-            if (mUpAnimatorSet.isRunning()) {
-                mUpAnimatorSet.cancel();
-            }
-            mUpAnimatorSet.removeAllListeners();
-            for (Animator animator : mUpAnimatorSet.getChildAnimations()) {
-                animator.removeAllListeners();
-            }
-        }
-        if (mDownAnimatorSet != null) {
-            if (mDownAnimatorSet.isRunning()) {
-                mDownAnimatorSet.cancel();
-            }
-            mDownAnimatorSet.removeAllListeners();
-            for (Animator animator : mDownAnimatorSet.getChildAnimations()) {
-                animator.removeAllListeners();
-            }
-        }
-        this.removeCallbacks(mFreeFallRunnable);
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateRunning();
+    }
+
+    /**
+     * API 24以上才会回调；低版本上父View的可见性变化同样会通过onVisibilityChanged分发下来，
+     * 窗口的可见性由onWindowVisibilityChanged处理，所以暂停和恢复不依赖这个回调
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        updateRunning();
     }
 
     @Override
-    public void setVisibility(int visibility) {
-        super.setVisibility(visibility);
-        if (visibility == View.VISIBLE) {
-            startLoading(200);
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateRunning();
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        // 只在失去焦点（例如被对话框覆盖）时暂停，从未获得过焦点的窗口照常弹跳
+        mWindowFocusLost = !hasWindowFocus;
+        updateRunning();
+    }
+
+    /**
+     * 根据是否可见暂停或恢复弹跳，不可见期间不调度任何回调，恢复后从暂停的位置继续
+     */
+    private void updateRunning() {
+        boolean shouldRun = mLoadingRequested && mAttached && isShown() && getWindowVisibility() == VISIBLE
+                && !mWindowFocusLost && AppVisibility.isForeground();
+        if (shouldRun == mRunning) {
+            return;
+        }
+        mRunning = shouldRun;
+        if (shouldRun) {
+            if (mBounce.getPhase() == BounceMotion.PHASE_IDLE) {
+                this.postDelayed(mFreeFallRunnable, mStartDelay);
+            } else {
+                mBounce.resume();
+                mFrameScheduler.schedule();
+            }
         } else {
-            stopLoading();
+            mFrameScheduler.cancel();
+            this.removeCallbacks(mFreeFallRunnable);
         }
     }
 
@@ -171,88 +207,46 @@ public class LoadingView extends FrameLayout {
      * 上抛
      */
     public void upThrow() {
-        ObjectAnimator objectAnimator = ObjectAnimator.ofFloat(mShapeLoadingView, "translationY", mDistance, 0);
-        ObjectAnimator scaleIndication = ObjectAnimator.ofFloat(mIndicationIm, "scaleX", 0.2f, 1);
-
-        ObjectAnimator objectAnimator1 = null;
-        switch (mShapeLoadingView.getShape()) {
-            case SHAPE_RECT:
-                objectAnimator1 = ObjectAnimator.ofFloat(mShapeLoadingView, "rotation", 0, -120);
-                break;
-            case SHAPE_CIRCLE:
-                objectAnimator1 = ObjectAnimator.ofFloat(mShapeLoadingView, "rotation", 0, 180);
-                break;
-            case SHAPE_TRIANGLE:
-                objectAnimator1 = ObjectAnimator.ofFloat(mShapeLoadingView, "rotation", 0, 180);
-                break;
-        }
-
-        objectAnimator.setDuration(ANIMATION_DURATION);
-        objectAnimator1.setDuration(ANIMATION_DURATION);
-        objectAnimator.setInterpolator(new DecelerateInterpolator(factor));
-        objectAnimator1.setInterpolator(new DecelerateInterpolator(factor));
-        mUpAnimatorSet = new AnimatorSet();
-        mUpAnimatorSet.setDuration(ANIMATION_DURATION);
-        mUpAnimatorSet.playTogether(objectAnimator, objectAnimator1, scaleIndication);
-
-        mUpAnimatorSet.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-
-            }
-
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                freeFall();
-            }
-
-            @Override
-            public void onAnimationCancel(Animator animation) {
-
-            }
-
-            @Override
-            public void onAnimationRepeat(Animator animation) {
-
-            }
-        });
-        mUpAnimatorSet.start();
+        // 自定义形状序列时getShape()返回null，按三角形和圆的角度旋转
+        float rotationTarget = mShapeLoadingView.getShape() == ShapeLoadingView.Shape.SHAPE_RECT ? -120 : 180;
+        startPhase(BounceMotion.PHASE_UP, rotationTarget);
     }
 
     /**
      * 下落
      */
     public void freeFall() {
-        ObjectAnimator objectAnimator = ObjectAnimator.ofFloat(mShapeLoadingView, "translationY", 0, mDistance);
-        ObjectAnimator scaleIndication = ObjectAnimator.ofFloat(mIndicationIm, "scaleX", 1, 0.2f);
-
-        objectAnimator.setDuration(ANIMATION_DURATION);
-        objectAnimator.setInterpolator(new AccelerateInterpolator(factor));
-        mDownAnimatorSet = new AnimatorSet();
-        mDownAnimatorSet.setDuration(ANIMATION_DURATION);
-        mDownAnimatorSet.playTogether(objectAnimator, scaleIndication);
-        mDownAnimatorSet.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-
-            }
-
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                mShapeLoadingView.changeShape();
-                upThrow();
-            }
-
-            @Override
-            public void onAnimationCancel(Animator animation) {
+        startPhase(BounceMotion.PHASE_DOWN, 0);
+    }
 
-            }
+    private void startPhase(int phase, float rotationTarget) {
+        mBounce.start(phase, rotationTarget);
+        if (mRunning) {
+            mFrameScheduler.schedule();
+        }
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
+    /**
+     * 按经过的时间更新当前阶段，下落结束时变换形状并上抛，上抛结束时再次下落
+     */
+    private void updateBounce(long frameTimeNanos) {
+        if (mBounce.getPhase() == BounceMotion.PHASE_IDLE) {
+            return;
+        }
+        boolean finished = mBounce.update(frameTimeNanos, mDistance, factor);
+        mShapeLoadingView.setTranslationY(mBounce.translationY);
+        if (mBounce.getPhase() == BounceMotion.PHASE_UP) {
+            mShapeLoadingView.setRotation(mBounce.rotation);
+        }
+        mIndicationIm.setScaleX(mBounce.indicationScaleX);
 
-            }
-        });
-        mDownAnimatorSet.start();
+        if (!finished) {
+            mFrameScheduler.schedule();
+        } else if (mBounce.getPhase() == BounceMotion.PHASE_DOWN) {
+            mShapeLoadingView.changeShape();
+            upThrow();
+        } else {
+            freeFall();
+        }
     }
 }
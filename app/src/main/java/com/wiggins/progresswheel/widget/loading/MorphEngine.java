@@ -0,0 +1,91 @@
+package com.wiggins.progresswheel.widget.loading;
+
+import android.graphics.Path;
+
+import com.wiggins.progresswheel.widget.ColorUtils;
+
+/**
+ * @Description 形状序列的变形：尺寸变化时把每个形状展开成顶点数相同的顶点环并生成静止时的路径，
+ * 每帧只在两个顶点环之间逐点插值，写入复用的缓冲区和路径，不创建对象
+ * @Author 一花一世界
+ */
+final class MorphEngine {
+
+    private final MorphShape[] mShapes;
+    private final int[] mColors;
+    private final int mVertexCount;
+
+    // 每个形状的顶点环和静止时的路径
+    private final float[][] mVertices;
+    private final Path[] mPaths;
+    // 插值结果
+    private final float[] mFrame;
+
+    MorphEngine(MorphShape[] shapes, int[] colors, int vertexCount) {
+        if (shapes.length == 0 || shapes.length != colors.length) {
+            throw new IllegalArgumentException("shapes and colors must be non-empty and of the same length");
+        }
+        if (vertexCount < 3) {
+            throw new IllegalArgumentException("vertexCount not less than 3");
+        }
+        this.mShapes = shapes.clone();
+        this.mColors = colors.clone();
+        this.mVertexCount = vertexCount;
+        mVertices = new float[shapes.length][2 * vertexCount];
+        mPaths = new Path[shapes.length];
+        for (int i = 0; i < shapes.length; i++) {
+            mPaths[i] = new Path();
+        }
+        mFrame = new float[2 * vertexCount];
+    }
+
+    int getShapeCount() {
+        return mShapes.length;
+    }
+
+    int getColor(int index) {
+        return mColors[index];
+    }
+
+    /**
+     * 按新的尺寸展开所有形状
+     */
+    void setSize(float width, float height) {
+        for (int i = 0; i < mShapes.length; i++) {
+            mShapes[i].flatten(mVertices[i], mVertexCount, width, height);
+            buildPath(mPaths[i], mVertices[i]);
+        }
+    }
+
+    /**
+     * 某个形状静止时的路径
+     */
+    Path getPath(int index) {
+        return mPaths[index];
+    }
+
+    /**
+     * 在两个形状之间插值，结果写入out
+     */
+    void morph(int from, int to, float fraction, Path out) {
+        float[] fromVertices = mVertices[from];
+        float[] toVertices = mVertices[to];
+        for (int i = 0; i < mFrame.length; i++) {
+            mFrame[i] = fromVertices[i] + (toVertices[i] - fromVertices[i]) * fraction;
+        }
+        buildPath(out, mFrame);
+    }
+
+    int blendColor(int from, int to, float fraction) {
+        return ColorUtils.blend(mColors[from], mColors[to], fraction);
+    }
+
+    private void buildPath(Path path, float[] vertices) {
+        path.rewind();
+        path.moveTo(vertices[0], vertices[1]);
+        for (int i = 2; i < 2 * mVertexCount; i += 2) {
+            path.lineTo(vertices[i], vertices[i + 1]);
+        }
+        path.close();
+    }
+}
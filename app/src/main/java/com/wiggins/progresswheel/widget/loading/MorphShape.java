@@ -0,0 +1,19 @@
+package com.wiggins.progresswheel.widget.loading;
+
+/**
+ * @Description 可以参与变形的形状：把轮廓展开成固定数量的顶点，任意两个形状按顶点逐一插值即可互相变形
+ * 只在尺寸或形状序列变化时调用一次，每帧不会调用
+ * @Author 一花一世界
+ */
+public interface MorphShape {
+
+    /**
+     * 把轮廓展开成顶点环，写入dst的前2 * vertexCount个元素（x0, y0, x1, y1...）
+     * 各形状都应从顶部中间附近的点开始顺时针排列，变形时对应的顶点才不会交叉
+     *
+     * @param vertexCount 顶点数量
+     * @param width       View的宽度
+     * @param height      View的高度
+     */
+    void flatten(float[] dst, int vertexCount, float width, float height);
+}
@@ -0,0 +1,157 @@
+package com.wiggins.progresswheel.widget.loading;
+
+import android.graphics.Path;
+import android.graphics.PathMeasure;
+
+/**
+ * @Description 常用的变形形状：多边形、圆以及任意路径，顶点按周长均匀分布
+ * @Author 一花一世界
+ */
+public final class MorphShapes {
+
+    // 等边三角形的高与边长之比
+    private static final float TRIANGLE_HEIGHT = 0.8660254f;
+
+    /**
+     * 等边三角形，顶点在顶部中间，底边在View高度的√3/2处
+     */
+    public static final MorphShape TRIANGLE = polygon(
+            0.5f, 0f,
+            1f, TRIANGLE_HEIGHT,
+            0f, TRIANGLE_HEIGHT);
+
+    /**
+     * 充满View的圆（宽高不同时为椭圆）
+     */
+    public static final MorphShape CIRCLE = new MorphShape() {
+        @Override
+        public void flatten(float[] dst, int vertexCount, float width, float height) {
+            float radiusX = width / 2;
+            float radiusY = height / 2;
+            for (int i = 0; i < vertexCount; i++) {
+                // 从顶部开始顺时针
+                double angle = 2 * Math.PI * i / vertexCount - Math.PI / 2;
+                dst[2 * i] = radiusX + radiusX * (float) Math.cos(angle);
+                dst[2 * i + 1] = radiusY + radiusY * (float) Math.sin(angle);
+            }
+        }
+    };
+
+    /**
+     * 充满View的矩形，从上边的中点开始
+     */
+    public static final MorphShape RECT = polygon(
+            0.5f, 0f,
+            1f, 0f,
+            1f, 1f,
+            0f, 1f,
+            0f, 0f);
+
+    private MorphShapes() {
+    }
+
+    /**
+     * 多边形，顶点一定会出现在展开后的顶点环中，棱角不会被削掉
+     *
+     * @param points 按顺时针排列的顶点，坐标为相对于View宽高的比例（0~1）
+     */
+    public static MorphShape polygon(float... points) {
+        if (points.length < 4 || points.length % 2 != 0) {
+            throw new IllegalArgumentException("polygon needs at least 2 points");
+        }
+        return new Polygon(points.clone());
+    }
+
+    /**
+     * 任意路径（只使用第一个轮廓），例如应用的标志
+     *
+     * @param viewportWidth  路径坐标系的宽度，绘制时缩放到View的宽度
+     * @param viewportHeight 路径坐标系的高度，绘制时缩放到View的高度
+     */
+    public static MorphShape path(Path path, float viewportWidth, float viewportHeight) {
+        if (viewportWidth <= 0 || viewportHeight <= 0) {
+            throw new IllegalArgumentException("viewport size must be greater than 0");
+        }
+        return new PathShape(new Path(path), viewportWidth, viewportHeight);
+    }
+
+    private static final class Polygon implements MorphShape {
+
+        private final float[] mPoints;
+
+        Polygon(float[] points) {
+            this.mPoints = points;
+        }
+
+        @Override
+        public void flatten(float[] dst, int vertexCount, float width, float height) {
+            int corners = mPoints.length / 2;
+            if (vertexCount < corners) {
+                throw new IllegalArgumentException("vertexCount less than polygon corners");
+            }
+            float perimeter = 0;
+            for (int i = 0; i < corners; i++) {
+                perimeter += edgeLength(i, width, height);
+            }
+            // 每条边先分到一个顶点（边的起点），剩下的按边长比例分配，最后一条边补齐舍入误差
+            int written = 0;
+            float length = 0;
+            for (int i = 0; i < corners; i++) {
+                length += edgeLength(i, width, height);
+                int end;
+                if (i == corners - 1) {
+                    end = vertexCount;
+                } else {
+                    int target = perimeter > 0 ? Math.round(length / perimeter * vertexCount) : (i + 1) * vertexCount / corners;
+                    // 每条边至少一个顶点，并给后面的边留出顶点
+                    end = Math.max(written + 1, Math.min(vertexCount - (corners - i - 1), target));
+                }
+                int count = end - written;
+                float startX = mPoints[2 * i] * width;
+                float startY = mPoints[2 * i + 1] * height;
+                float endX = mPoints[2 * ((i + 1) % corners)] * width;
+                float endY = mPoints[2 * ((i + 1) % corners) + 1] * height;
+                for (int j = 0; j < count; j++) {
+                    float t = (float) j / count;
+                    dst[2 * written] = startX + (endX - startX) * t;
+                    dst[2 * written + 1] = startY + (endY - startY) * t;
+                    written++;
+                }
+            }
+        }
+
+        private float edgeLength(int index, float width, float height) {
+            int next = (index + 1) % (mPoints.length / 2);
+            float dx = (mPoints[2 * next] - mPoints[2 * index]) * width;
+            float dy = (mPoints[2 * next + 1] - mPoints[2 * index + 1]) * height;
+            return (float) Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    private static final class PathShape implements MorphShape {
+
+        private final Path mPath;
+        private final float mViewportWidth;
+        private final float mViewportHeight;
+
+        PathShape(Path path, float viewportWidth, float viewportHeight) {
+            this.mPath = path;
+            this.mViewportWidth = viewportWidth;
+            this.mViewportHeight = viewportHeight;
+        }
+
+        @Override
+        public void flatten(float[] dst, int vertexCount, float width, float height) {
+            PathMeasure measure = new PathMeasure(mPath, true);
+            float length = measure.getLength();
+            float scaleX = width / mViewportWidth;
+            float scaleY = height / mViewportHeight;
+            float[] position = new float[2];
+            for (int i = 0; i < vertexCount; i++) {
+                measure.getPosTan(length * i / vertexCount, position, null);
+                dst[2 * i] = position[0] * scaleX;
+                dst[2 * i + 1] = position[1] * scaleY;
+            }
+        }
+    }
+}
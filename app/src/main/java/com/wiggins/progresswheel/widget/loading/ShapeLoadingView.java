@@ -1,6 +1,5 @@
 package com.wiggins.progresswheel.widget.loading;
 
-import android.animation.ArgbEvaluator;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Canvas;
@@ -9,10 +8,10 @@ import android.graphics.Path;
 import android.os.Build;
 import android.util.AttributeSet;
 import android.view.View;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Interpolator;
 
 import com.wiggins.progresswheel.R;
+import com.wiggins.progresswheel.widget.AppVisibility;
+import com.wiggins.progresswheel.widget.FrameScheduler;
 
 /**
  * @Description 自定义loading动画
@@ -20,21 +19,42 @@ import com.wiggins.progresswheel.R;
  */
 public class ShapeLoadingView extends View {
 
-    private static final float genhao3 = 1.7320508075689f;
-    private static final float mTriangle2Circle = 0.25555555f;
+    // 默认的形状序列：三角形 -> 圆 -> 方形 -> 三角形，与Shape的顺序对应
+    private static final Shape[] PRESET_SHAPES = {Shape.SHAPE_TRIANGLE, Shape.SHAPE_CIRCLE, Shape.SHAPE_RECT};
+    // 每个形状展开成的顶点数，24dp的View上圆的误差远小于一个像素
+    private static final int VERTEX_COUNT = 72;
 
-    private Shape mShape = Shape.SHAPE_CIRCLE;
-    private Interpolator mInterpolator = new DecelerateInterpolator();
-    private ArgbEvaluator mArgbEvaluator = new ArgbEvaluator();
+    // 当前的形状序列，以及是否是默认序列
+    private MorphEngine mEngine;
+    private boolean mPresetInUse;
+    // 当前形状在序列中的下标
+    private int mShapeIndex;
+    // 变形过程中复用的路径
+    private final Path mMorphPath = new Path();
 
-    private int mTriangleColor;
-    private int mCircleColor;
-    private int mRectColor;
+    // 每次变形的时长（毫秒），与刷新率无关
+    private static final long DEFAULT_MORPH_DURATION = 120;
+    private static final long NANOS_PER_MILLI = 1000000;
+    private long mMorphDuration = DEFAULT_MORPH_DURATION;
+    // 变形开始的帧时间（纳秒），-1表示还没有开始
+    private long mMorphStartTime = -1;
+    private final FrameScheduler mFrameScheduler = new FrameScheduler(new FrameScheduler.Callback() {
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            updateMorph(frameTimeNanos);
+        }
+    });
 
-    /**
-     * 用赛贝尔曲线画圆
-     */
-    private float mMagicNumber = 0.55228475f;
+    // 是否允许调度帧回调：已附加、自身和所有父View可见、窗口可见且没有失去焦点、进程在前台
+    private boolean mRunning = false;
+    private boolean mAttached = false;
+    private boolean mWindowFocusLost = false;
+    private final AppVisibility.OnAppVisibilityChangeListener mAppVisibilityListener = new AppVisibility.OnAppVisibilityChangeListener() {
+        @Override
+        public void onAppVisibilityChanged(boolean foreground) {
+            updateRunning();
+        }
+    };
 
     public ShapeLoadingView(Context context) {
         super(context);
@@ -48,6 +68,7 @@ public class ShapeLoadingView extends View {
 
     public ShapeLoadingView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        init();
     }
 
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
@@ -57,177 +78,208 @@ public class ShapeLoadingView extends View {
     }
 
     private void init() {
+        mEngine = new MorphEngine(
+                new MorphShape[]{MorphShapes.TRIANGLE, MorphShapes.CIRCLE, MorphShapes.RECT},
+                new int[]{
+                        getResources().getColor(R.color.triangle),
+                        getResources().getColor(R.color.circle),
+                        getResources().getColor(R.color.rect)},
+                VERTEX_COUNT);
+        mPresetInUse = true;
+        mShapeIndex = 1;// 从圆开始
         mPaint = new Paint();
-        mPaint.setColor(getResources().getColor(R.color.triangle));
+        mPaint.setColor(mEngine.getColor(mShapeIndex));
         mPaint.setAntiAlias(true);
         mPaint.setStyle(Paint.Style.FILL_AND_STROKE);
         setBackgroundColor(getResources().getColor(R.color.view_bg));
-        mTriangleColor = getResources().getColor(R.color.triangle);
-        mCircleColor = getResources().getColor(R.color.circle);
-        mRectColor = getResources().getColor(R.color.triangle);
     }
 
+    // 是否正在变形
     public boolean mIsLoading = false;
     private Paint mPaint;
-    private float mControlX = 0;
-    private float mControlY = 0;
+    // 变形的进度（0~1），按经过的时间计算
     private float mAnimPercent;
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // 每个形状只在尺寸变化时展开一次，之后每帧只做插值
+        mEngine.setSize(w, h);
+    }
+
+    /**
+     * 按经过的时间推进变形，一帧耗时很长时直接跳到对应的进度
+     */
+    private void updateMorph(long frameTimeNanos) {
+        if (!mIsLoading) {
+            return;
+        }
+        if (mMorphStartTime < 0) {
+            // 从暂停时的进度继续
+            mMorphStartTime = frameTimeNanos - (long) (mAnimPercent * mMorphDuration * NANOS_PER_MILLI);
+        }
+        long elapsed = frameTimeNanos - mMorphStartTime;
+        if (mMorphDuration <= 0 || elapsed >= mMorphDuration * NANOS_PER_MILLI) {
+            finishMorph();
+        } else {
+            mAnimPercent = (float) elapsed / (mMorphDuration * NANOS_PER_MILLI);
+            mFrameScheduler.schedule();
+        }
+        invalidate();
+    }
+
+    /**
+     * 结束变形，切换到下一个形状
+     */
+    private void finishMorph() {
+        mShapeIndex = nextShapeIndex();
+        mIsLoading = false;
+        mAnimPercent = 0;
+        mMorphStartTime = -1;
+    }
+
+    private int nextShapeIndex() {
+        return (mShapeIndex + 1) % mEngine.getShapeCount();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        AppVisibility.register(getContext());
+        AppVisibility.addListener(mAppVisibilityListener);
+        updateRunning();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        AppVisibility.removeListener(mAppVisibilityListener);
+        updateRunning();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateRunning();
+    }
+
+    /**
+     * API 24以上才会回调；低版本上父View的可见性变化同样会通过onVisibilityChanged分发下来，
+     * 窗口的可见性由onWindowVisibilityChanged处理，所以暂停和恢复不依赖这个回调
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        updateRunning();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateRunning();
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        // 只在失去焦点时暂停，从未获得过焦点的窗口照常变形
+        mWindowFocusLost = !hasWindowFocus;
+        updateRunning();
+    }
+
+    /**
+     * 根据是否可见暂停或恢复变形，不可见期间不调度帧回调，恢复后从暂停时的进度继续
+     */
+    private void updateRunning() {
+        boolean shouldRun = mAttached && isShown() && getWindowVisibility() == VISIBLE
+                && !mWindowFocusLost && AppVisibility.isForeground();
+        if (shouldRun == mRunning) {
+            return;
+        }
+        mRunning = shouldRun;
+        if (shouldRun) {
+            if (mIsLoading) {
+                mMorphStartTime = -1;
+                mFrameScheduler.schedule();
+            }
+        } else {
+            mFrameScheduler.cancel();
+        }
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
         if (getVisibility() == GONE) {
             return;
         }
-        // FIXME: 15/6/15  动画待优化
-        switch (mShape) {
-            case SHAPE_TRIANGLE:
-                if (mIsLoading) {
-                    mAnimPercent += 0.1611113;
-                    int color = (int) mArgbEvaluator.evaluate(mAnimPercent, mTriangleColor, mCircleColor);
-                    mPaint.setColor(color);
-                    // triangle to circle
-                    Path path = new Path();
-                    path.moveTo(relativeXFromView(0.5f), relativeYFromView(0f));
-
-                    if (mAnimPercent >= 1) {
-                        mShape = Shape.SHAPE_CIRCLE;
-                        mIsLoading = false;
-                        mAnimPercent = 1;
-                    }
-                    float controlX = mControlX - relativeXFromView(mAnimPercent * mTriangle2Circle)
-                            * genhao3;
-                    float controlY = mControlY - relativeYFromView(mAnimPercent * mTriangle2Circle);
-                    path.quadTo(relativeXFromView(1) - controlX, controlY, relativeXFromView(0.5f + genhao3 / 4), relativeYFromView(0.75f));
-                    path.quadTo(relativeXFromView(0.5f), relativeYFromView(0.75f + 2 * mAnimPercent * mTriangle2Circle), relativeXFromView(0.5f - genhao3 / 4), relativeYFromView(0.75f));
-                    path.quadTo(controlX, controlY, relativeXFromView(0.5f), relativeYFromView(0f));
-                    path.close();
-                    canvas.drawPath(path, mPaint);
-
-                    invalidate();
-                } else {
-                    Path path = new Path();
-                    mPaint.setColor(getResources().getColor(R.color.triangle));
-                    path.moveTo(relativeXFromView(0.5f), relativeYFromView(0f));
-                    path.lineTo(relativeXFromView(1), relativeYFromView(genhao3 / 2f));
-                    path.lineTo(relativeXFromView(0), relativeYFromView(genhao3 / 2f));
-                    mControlX = relativeXFromView(0.5f - genhao3 / 8.0f);
-                    mControlY = relativeYFromView(3 / 8.0f);
-                    mAnimPercent = 0;
-                    path.close();
-                    canvas.drawPath(path, mPaint);
-                }
-                break;
-            case SHAPE_CIRCLE:
-                if (mIsLoading) {
-                    float magicNumber = mMagicNumber + mAnimPercent;
-                    mAnimPercent += 0.12;
-                    if (magicNumber + mAnimPercent >= 1.9f) {
-                        mShape = Shape.SHAPE_RECT;
-                        mIsLoading = false;
-                    }
-                    int color = (int) mArgbEvaluator.evaluate(mAnimPercent, mCircleColor, mRectColor);
-                    mPaint.setColor(color);
-
-                    Path path = new Path();
-
-                    path.moveTo(relativeXFromView(0.5f), relativeYFromView(0f));
-                    path.cubicTo(relativeXFromView(0.5f + magicNumber / 2), relativeYFromView(0f),
-                            relativeXFromView(1), relativeYFromView(0.5f - magicNumber / 2),
-                            relativeXFromView(1f), relativeYFromView(0.5f));
-                    path.cubicTo(
-                            relativeXFromView(1), relativeXFromView(0.5f + magicNumber / 2),
-                            relativeXFromView(0.5f + magicNumber / 2), relativeYFromView(1f),
-                            relativeXFromView(0.5f), relativeYFromView(1f));
-                    path.cubicTo(relativeXFromView(0.5f - magicNumber / 2), relativeXFromView(1f),
-                            relativeXFromView(0), relativeYFromView(0.5f + magicNumber / 2),
-                            relativeXFromView(0f), relativeYFromView(0.5f));
-                    path.cubicTo(relativeXFromView(0f), relativeXFromView(0.5f - magicNumber / 2),
-                            relativeXFromView(0.5f - magicNumber / 2), relativeYFromView(0),
-                            relativeXFromView(0.5f), relativeYFromView(0f));
-
-                    path.close();
-                    canvas.drawPath(path, mPaint);
-
-                    invalidate();
-                } else {
-                    mPaint.setColor(getResources().getColor(R.color.circle));
-                    Path path = new Path();
-
-                    float magicNumber = mMagicNumber;
-                    path.moveTo(relativeXFromView(0.5f), relativeYFromView(0f));
-                    path.cubicTo(relativeXFromView(0.5f + magicNumber / 2), 0,
-                            relativeXFromView(1), relativeYFromView(magicNumber / 2),
-                            relativeXFromView(1f), relativeYFromView(0.5f));
-                    path.cubicTo(
-                            relativeXFromView(1), relativeXFromView(0.5f + magicNumber / 2),
-                            relativeXFromView(0.5f + magicNumber / 2), relativeYFromView(1f),
-                            relativeXFromView(0.5f), relativeYFromView(1f));
-                    path.cubicTo(relativeXFromView(0.5f - magicNumber / 2), relativeXFromView(1f),
-                            relativeXFromView(0), relativeYFromView(0.5f + magicNumber / 2),
-                            relativeXFromView(0f), relativeYFromView(0.5f));
-                    path.cubicTo(relativeXFromView(0f), relativeXFromView(0.5f - magicNumber / 2),
-                            relativeXFromView(0.5f - magicNumber / 2), relativeYFromView(0),
-                            relativeXFromView(0.5f), relativeYFromView(0f));
-                    mAnimPercent = 0;
-
-                    path.close();
-                    canvas.drawPath(path, mPaint);
-                }
-                break;
-            case SHAPE_RECT:
-                if (mIsLoading) {
-                    mAnimPercent += 0.15;
-                    if (mAnimPercent >= 1) {
-                        mShape = Shape.SHAPE_TRIANGLE;
-                        mIsLoading = false;
-                        mAnimPercent = 1;
-                    }
-                    int color = (int) mArgbEvaluator.evaluate(mAnimPercent, mRectColor, mTriangleColor);
-                    mPaint.setColor(color);
-                    Path path = new Path();
-                    path.moveTo(relativeXFromView(0.5f * mAnimPercent), 0);
-                    path.lineTo(relativeYFromView(1 - 0.5f * mAnimPercent), 0);
-                    float distanceX = (mControlX) * mAnimPercent;
-                    float distanceY = (relativeYFromView(1f) - mControlY) * mAnimPercent;
-
-                    path.lineTo(relativeXFromView(1f) - distanceX, relativeYFromView(1f) - distanceY);
-                    path.lineTo(relativeXFromView(0f) + distanceX, relativeYFromView(1f) - distanceY);
-
-                    path.close();
-
-                    canvas.drawPath(path, mPaint);
-                    invalidate();
-                } else {
-                    mPaint.setColor(getResources().getColor(R.color.rect));
-                    mControlX = relativeXFromView(0.5f - genhao3 / 4);
-                    mControlY = relativeYFromView(0.75f);
-                    Path path = new Path();
-                    path.moveTo(relativeXFromView(0f), relativeYFromView(0f));
-                    path.lineTo(relativeXFromView(1f), relativeYFromView(0f));
-                    path.lineTo(relativeXFromView(1f), relativeYFromView(1f));
-                    path.lineTo(relativeXFromView(0f), relativeYFromView(1f));
-                    path.close();
-                    mAnimPercent = 0;
-                    canvas.drawPath(path, mPaint);
-                }
-                break;
+        // 只按当前进度绘制，进度由帧回调推进；每帧只在预先展开的顶点环之间插值，复用同一个路径，不创建对象也不读取资源
+        if (mIsLoading) {
+            int next = nextShapeIndex();
+            mPaint.setColor(mEngine.blendColor(mShapeIndex, next, mAnimPercent));
+            mEngine.morph(mShapeIndex, next, mAnimPercent, mMorphPath);
+            canvas.drawPath(mMorphPath, mPaint);
+        } else {
+            mPaint.setColor(mEngine.getColor(mShapeIndex));
+            canvas.drawPath(mEngine.getPath(mShapeIndex), mPaint);
+        }
+    }
+
+    /**
+     * 开始变形到下一个形状，正在变形时忽略；不可见时等到恢复可见后再开始
+     */
+    public void changeShape() {
+        if (mIsLoading) {
+            return;
+        }
+        mIsLoading = true;
+        mAnimPercent = 0;
+        mMorphStartTime = -1;
+        if (mRunning) {
+            mFrameScheduler.schedule();
         }
+        invalidate();
     }
 
-    private float relativeXFromView(float percent) {
-        return getWidth() * percent;
+    public long getMorphDuration() {
+        return mMorphDuration;
     }
 
-    private float relativeYFromView(float percent) {
-        return getHeight() * percent;
+    /**
+     * 设置每次变形的时长（毫秒）
+     */
+    public void setMorphDuration(long morphDuration) {
+        this.mMorphDuration = morphDuration;
     }
 
-    public void changeShape() {
-        mIsLoading = true;
+    /**
+     * 设置自定义的形状序列，按顺序循环变形，替换默认的三角形、圆和方形，从第一个形状开始
+     *
+     * @param shapes 形状，例如用MorphShapes.path()包装的标志轮廓
+     * @param colors 每个形状的颜色，变形时在相邻两个颜色之间过渡
+     */
+    public void setShapeSequence(MorphShape[] shapes, int[] colors) {
+        mEngine = new MorphEngine(shapes, colors, VERTEX_COUNT);
+        mEngine.setSize(getWidth(), getHeight());
+        mPresetInUse = false;
+        mShapeIndex = 0;
+        mIsLoading = false;
+        mAnimPercent = 0;
+        mMorphStartTime = -1;
+        mFrameScheduler.cancel();
         invalidate();
     }
 
+    /**
+     * 当前形状在序列中的下标
+     */
+    public int getShapeIndex() {
+        return mShapeIndex;
+    }
+
     public enum Shape {
         SHAPE_TRIANGLE, SHAPE_RECT, SHAPE_CIRCLE
     }
@@ -240,7 +292,10 @@ public class ShapeLoadingView extends View {
         }
     }
 
+    /**
+     * 当前的形状，使用自定义的形状序列时返回null
+     */
     public Shape getShape() {
-        return mShape;
+        return mPresetInUse ? PRESET_SHAPES[mShapeIndex] : null;
     }
 }
@@ -0,0 +1,67 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 进程前后台状态通知的单元测试
+ */
+public class AppVisibilityTest {
+
+    private static class RecordingListener implements AppVisibility.OnAppVisibilityChangeListener {
+        int calls;
+        boolean lastForeground;
+
+        @Override
+        public void onAppVisibilityChanged(boolean foreground) {
+            calls++;
+            lastForeground = foreground;
+        }
+    }
+
+    @Test
+    public void setForeground_notifiesOnlyOnChange() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        AppVisibility.addListener(listener);
+        try {
+            assertTrue(AppVisibility.isForeground());
+            AppVisibility.setForeground(true);
+            assertEquals(0, listener.calls);
+
+            AppVisibility.setForeground(false);
+            assertFalse(AppVisibility.isForeground());
+            assertEquals(1, listener.calls);
+            assertFalse(listener.lastForeground);
+
+            AppVisibility.setForeground(false);
+            assertEquals(1, listener.calls);
+
+            AppVisibility.setForeground(true);
+            assertEquals(2, listener.calls);
+            assertTrue(listener.lastForeground);
+        } finally {
+            AppVisibility.removeListener(listener);
+            AppVisibility.setForeground(true);
+        }
+    }
+
+    @Test
+    public void removeListener_stopsNotifications() throws Exception {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        AppVisibility.addListener(first);
+        AppVisibility.addListener(second);
+        AppVisibility.removeListener(first);
+        try {
+            AppVisibility.setForeground(false);
+            assertEquals(0, first.calls);
+            assertEquals(1, second.calls);
+        } finally {
+            AppVisibility.removeListener(second);
+            AppVisibility.setForeground(true);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 有上限的LRU缓存的单元测试，键使用进度圆弧路径的键
+ */
+public class BoundedCacheTest {
+
+    private static final int SIZE = 300;
+    private static final float WIDTH = 20;
+
+    /**
+     * 与SweepPathCache一样放入一种尺寸和风格的0~360度，值只是一个占位对象
+     */
+    private static BoundedCache<SweepPathCache.Key, Object> fill(boolean fill) {
+        BoundedCache<SweepPathCache.Key, Object> cache =
+                new BoundedCache<SweepPathCache.Key, Object>(SweepPathCache.MAX_CACHE_SIZE);
+        SweepPathCache.Key probe = new SweepPathCache.Key();
+        for (int degree = 0; degree <= 360; degree++) {
+            set(probe, degree, fill);
+            cache.put(new SweepPathCache.Key(probe), new Object());
+        }
+        return cache;
+    }
+
+    private static void set(SweepPathCache.Key key, int degree, boolean fill) {
+        key.size = SIZE;
+        key.width = WIDTH;
+        key.degree = degree;
+        key.fill = fill;
+    }
+
+    @Test
+    public void get_findsEntryWithReusedProbe() throws Exception {
+        BoundedCache<SweepPathCache.Key, Object> cache = fill(false);
+        assertEquals(361, cache.size());
+        SweepPathCache.Key probe = new SweepPathCache.Key();
+        set(probe, 90, false);
+        Object value = cache.get(probe);
+        assertNotNull(value);
+        set(probe, 91, false);
+        set(probe, 90, false);
+        assertSame(value, cache.get(probe));
+        // 风格不同的键不会命中
+        set(probe, 90, true);
+        assertNull(cache.get(probe));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() throws Exception {
+        BoundedCache<SweepPathCache.Key, Object> cache = fill(false);
+        SweepPathCache.Key probe = new SweepPathCache.Key();
+        // 使用0度后，最久没有使用的是1度
+        set(probe, 0, false);
+        cache.get(probe);
+        for (int degree = 0; degree < SweepPathCache.MAX_CACHE_SIZE - 361 + 1; degree++) {
+            set(probe, degree, true);
+            cache.put(new SweepPathCache.Key(probe), new Object());
+        }
+        assertEquals(SweepPathCache.MAX_CACHE_SIZE, cache.size());
+        set(probe, 0, false);
+        assertNotNull(cache.get(probe));
+        set(probe, 1, false);
+        assertNull(cache.get(probe));
+        set(probe, 2, false);
+        assertNotNull(cache.get(probe));
+    }
+
+    @Test
+    public void get_hitAllocatesNothing() throws Exception {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        BoundedCache<SweepPathCache.Key, Object> cache = fill(false);
+        SweepPathCache.Key probe = new SweepPathCache.Key();
+        // 预热，保证类已初始化、方法已编译完成
+        int hits = 0;
+        for (int i = 0; i < 5; i++) {
+            hits += lookup(cache, probe, 100000);
+        }
+        bean.getThreadAllocatedBytes(threadId);
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+        hits += lookup(cache, probe, 100000);
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        assertEquals(6 * 100000, hits);
+        assertEquals(0, after - before);
+    }
+
+    /**
+     * 像进度每帧变化一度一样用同一个查询键查找
+     */
+    private static int lookup(BoundedCache<SweepPathCache.Key, Object> cache, SweepPathCache.Key probe, int frames) {
+        int hits = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            set(probe, frame % 361, false);
+            if (cache.get(probe) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
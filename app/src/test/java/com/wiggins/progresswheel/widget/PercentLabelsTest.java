@@ -0,0 +1,26 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 百分比文字表的单元测试
+ */
+public class PercentLabelsTest {
+
+    @Test
+    public void label_matchesConcatenation() throws Exception {
+        for (int i = 0; i <= PercentLabels.MAX_PERCENT; i++) {
+            assertEquals(i + "%", PercentLabels.label(i));
+        }
+        assertEquals("0%", PercentLabels.label(-5));
+        assertEquals("100%", PercentLabels.label(250));
+    }
+
+    @Test
+    public void label_returnsSameInstance() throws Exception {
+        assertSame(PercentLabels.label(42), PercentLabels.label(42));
+    }
+}
@@ -0,0 +1,102 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 进度比例、百分比和角度计算的单元测试
+ */
+public class ProgressFractionTest {
+
+    @Test
+    public void update_floorsPercentAndDegree() throws Exception {
+        ProgressFraction fraction = new ProgressFraction();
+        assertTrue(fraction.update(1, 3));
+        assertEquals(1 / 3f, fraction.getFraction(), 0.0001f);
+        assertEquals(33, fraction.getPercent());
+        assertEquals(120, fraction.getDegree());
+
+        fraction.update(999, 1000);
+        assertEquals(99, fraction.getPercent());
+        assertEquals(359, fraction.getDegree());
+
+        fraction.update(1000, 1000);
+        assertEquals(100, fraction.getPercent());
+        assertEquals(360, fraction.getDegree());
+    }
+
+    @Test
+    public void update_clampsAndHandlesZeroMax() throws Exception {
+        ProgressFraction fraction = new ProgressFraction();
+        fraction.update(150, 100);
+        assertEquals(100, fraction.getProgress());
+        assertEquals(100, fraction.getPercent());
+
+        fraction.update(5, 0);
+        assertEquals(0, fraction.getProgress());
+        assertEquals(0, fraction.getFraction(), 0);
+        assertEquals(0, fraction.getPercent());
+        assertEquals(0, fraction.getDegree());
+    }
+
+    @Test
+    public void update_beyondIntRange() throws Exception {
+        ProgressFraction fraction = new ProgressFraction();
+        long max = 10L * Integer.MAX_VALUE;
+        fraction.update(max / 2, max);
+        assertEquals(50, fraction.getPercent());
+        assertEquals(180, fraction.getDegree());
+        assertEquals(max, fraction.getMax());
+    }
+
+    @Test
+    public void update_reportsChangesOnly() throws Exception {
+        ProgressFraction fraction = new ProgressFraction();
+        assertEquals(0, fraction.getProgress());
+        assertTrue(fraction.update(0, 0));
+        assertFalse(fraction.update(0, 0));
+        assertTrue(fraction.update(0, 100));
+        assertFalse(fraction.update(0, 100));
+        // 超过最大值的进度按最大值计算，与已经完成时相同
+        assertTrue(fraction.update(100, 100));
+        assertFalse(fraction.update(200, 100));
+    }
+
+    @Test
+    public void update_allocatesNothingPerFrame() throws Exception {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        ProgressFraction fraction = new ProgressFraction();
+        // 预热，保证类已初始化、方法已编译完成，不会在测量时因重新编译分配内存
+        long sum = 0;
+        for (int i = 0; i < 5; i++) {
+            sum += runFrames(fraction, 100000);
+        }
+        bean.getThreadAllocatedBytes(threadId);
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+        sum += runFrames(fraction, 100000);
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        assertTrue(sum > 0);
+        assertEquals(0, after - before);
+    }
+
+    /**
+     * 每帧按新的进度计算并读取百分比和角度
+     */
+    private static long runFrames(ProgressFraction fraction, int frames) {
+        long max = 3L * Integer.MAX_VALUE;
+        long sum = 0;
+        for (int frame = 0; frame <= frames; frame++) {
+            fraction.update(max / frames * frame, max);
+            sum += fraction.getPercent() + fraction.getDegree();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,137 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按键共用并计数的缓存的单元测试，键使用ProgressWheel背景的键
+ */
+public class RefCountedCacheTest {
+
+    private static final int WHEELS = 500;
+
+    /**
+     * 记录创建和回收次数的工厂，值只是一个占位对象
+     */
+    private static class CountingFactory implements RefCountedCache.Factory<ProgressWheelBackground.Key, Object> {
+        int created = 0;
+        int recycled = 0;
+
+        @Override
+        public ProgressWheelBackground.Key copyKey(ProgressWheelBackground.Key probe) {
+            return new ProgressWheelBackground.Key(probe);
+        }
+
+        @Override
+        public Object create(ProgressWheelBackground.Key key) {
+            created++;
+            return new Object();
+        }
+
+        @Override
+        public void recycle(Object value) {
+            recycled++;
+        }
+    }
+
+    private static void setWheel(ProgressWheelBackground.Key key, int rimColor) {
+        key.width = 200;
+        key.height = 200;
+        key.paddingLeft = 5;
+        key.paddingTop = 5;
+        key.paddingRight = 5;
+        key.paddingBottom = 5;
+        key.barWidth = 20;
+        key.rimWidth = 20;
+        key.outerEdgeSize = 1;
+        key.innerEdgeSize = 1;
+        key.rimColor = rimColor;
+        key.circleInnerColor = 0x00000000;
+        key.outerEdgeColor = 0xFF000000;
+        key.innerEdgeColor = 0xFF000000;
+    }
+
+    @Test
+    public void acquire_sharesOneEntryAcrossIdenticalWheels() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        RefCountedCache<ProgressWheelBackground.Key, Object> cache =
+                new RefCountedCache<ProgressWheelBackground.Key, Object>(factory);
+        // 与ProgressWheel一样复用查询用的键
+        ProgressWheelBackground.Key probe = new ProgressWheelBackground.Key();
+        Object first = null;
+        for (int i = 0; i < WHEELS; i++) {
+            setWheel(probe, 0xAADDDDDD);
+            Object value = cache.acquire(probe);
+            if (first == null) {
+                first = value;
+            }
+            assertSame(first, value);
+        }
+        assertEquals(1, cache.size());
+        assertEquals(1, factory.created);
+        assertEquals(WHEELS, cache.refCount(probe));
+    }
+
+    @Test
+    public void release_recyclesOnlyAfterLastWheel() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        RefCountedCache<ProgressWheelBackground.Key, Object> cache =
+                new RefCountedCache<ProgressWheelBackground.Key, Object>(factory);
+        ProgressWheelBackground.Key probe = new ProgressWheelBackground.Key();
+        setWheel(probe, 0xAADDDDDD);
+        for (int i = 0; i < WHEELS; i++) {
+            cache.acquire(probe);
+        }
+
+        for (int i = 0; i < WHEELS - 1; i++) {
+            assertFalse(cache.release(probe));
+        }
+        assertEquals(1, cache.size());
+        assertEquals(0, factory.recycled);
+
+        assertTrue(cache.release(probe));
+        assertEquals(0, cache.size());
+        assertEquals(1, factory.recycled);
+        assertEquals(0, cache.refCount(probe));
+        // 已经回收后再释放不会重复回收
+        assertFalse(cache.release(probe));
+        assertEquals(1, factory.recycled);
+    }
+
+    @Test
+    public void acquire_afterRecycle_createsNewEntry() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        RefCountedCache<ProgressWheelBackground.Key, Object> cache =
+                new RefCountedCache<ProgressWheelBackground.Key, Object>(factory);
+        ProgressWheelBackground.Key probe = new ProgressWheelBackground.Key();
+        setWheel(probe, 0xAADDDDDD);
+        Object first = cache.acquire(probe);
+        cache.release(probe);
+        assertNotSame(first, cache.acquire(probe));
+        assertEquals(2, factory.created);
+    }
+
+    @Test
+    public void acquire_differentRimColor_createsSeparateEntry() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        RefCountedCache<ProgressWheelBackground.Key, Object> cache =
+                new RefCountedCache<ProgressWheelBackground.Key, Object>(factory);
+        ProgressWheelBackground.Key probe = new ProgressWheelBackground.Key();
+        setWheel(probe, 0xAADDDDDD);
+        Object grey = cache.acquire(probe);
+        setWheel(probe, 0xFFFF0000);
+        Object red = cache.acquire(probe);
+        assertNotSame(grey, red);
+        assertEquals(2, cache.size());
+
+        cache.release(probe);
+        assertEquals(1, cache.size());
+        setWheel(probe, 0xAADDDDDD);
+        assertSame(grey, cache.acquire(probe));
+    }
+}
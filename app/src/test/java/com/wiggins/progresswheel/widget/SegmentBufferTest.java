@@ -0,0 +1,111 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多段进度三缓冲的单元测试：写入线程不断发布数据，读取线程取到的快照必须完整且不会倒退
+ */
+public class SegmentBufferTest {
+
+    @Test
+    public void acquire_seesOnlyCompleteSnapshots() throws Exception {
+        final SegmentBuffer buffer = new SegmentBuffer();
+        final int rounds = 20000;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                float[] values = new float[32];
+                int[] colors = new int[32];
+                for (int version = 1; version <= rounds; version++) {
+                    // 每个快照中所有段的值和颜色都等于版本号，段数随版本变化
+                    int count = version % values.length + 1;
+                    for (int i = 0; i < count; i++) {
+                        values[i] = version;
+                        colors[i] = version;
+                    }
+                    synchronized (buffer) {
+                        buffer.setAll(values, colors, count);
+                        buffer.publish();
+                    }
+                }
+            }
+        });
+        writer.start();
+
+        int lastVersion = 0;
+        while (lastVersion < rounds) {
+            if (!buffer.acquire()) {
+                continue;
+            }
+            SegmentList front = buffer.front();
+            int version = front.colorAt(0);
+            assertTrue(version > lastVersion);
+            assertEquals(version % 32 + 1, front.size());
+            for (int i = 0; i < front.size(); i++) {
+                assertEquals(version, front.colorAt(i));
+                assertEquals(version, front.valueAt(i), 0);
+            }
+            assertEquals(version * front.size(), front.total(), 0);
+            lastVersion = version;
+        }
+        writer.join();
+    }
+
+    @Test
+    public void publish_replaysSingleSegmentChanges() throws Exception {
+        SegmentBuffer buffer = new SegmentBuffer();
+        // 与缓冲区做同样修改的参照，每次发布后复制一份，取快照时与当时发布的参照比较
+        SegmentList expected = new SegmentList();
+        SegmentList published = new SegmentList();
+        Random random = new Random(42);
+        for (int step = 0; step < 20000; step++) {
+            synchronized (buffer) {
+                int op = random.nextInt(10);
+                int size = expected.size();
+                if (size == 0 || op < 3) {
+                    float value = random.nextInt(100) / 10f;
+                    int color = random.nextInt();
+                    buffer.add(value, color);
+                    expected.add(value, color);
+                } else if (op < 8) {
+                    int index = random.nextInt(size);
+                    float value = random.nextInt(100) / 10f;
+                    buffer.set(index, value);
+                    expected.set(index, value);
+                } else if (op < 9) {
+                    int index = random.nextInt(size);
+                    int color = random.nextInt();
+                    buffer.setColor(index, color);
+                    expected.setColor(index, color);
+                } else {
+                    int index = random.nextInt(size);
+                    buffer.remove(index);
+                    expected.remove(index);
+                }
+                // 偶尔攒很多次修改再发布，让缓冲区落后超过修改记录的容量
+                if (random.nextInt((step / 500) % 10 == 0 ? 400 : 3) == 0) {
+                    buffer.publish();
+                    published.copyFrom(expected);
+                }
+            }
+            // 绘制线程不定期取快照
+            if (random.nextInt(5) == 0 && buffer.acquire()) {
+                assertSameSegments(published, buffer.front());
+            }
+        }
+    }
+
+    private static void assertSameSegments(SegmentList expected, SegmentList actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.valueAt(i), actual.valueAt(i), 0);
+            assertEquals(expected.colorAt(i), actual.colorAt(i));
+            assertEquals(expected.prefix(i + 1), actual.prefix(i + 1), 0.001f);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 多段进度数据的单元测试，与逐段累加的结果对比
+ */
+public class SegmentListTest {
+
+    private static final float DELTA = 0.01f;
+
+    @Test
+    public void prefix_matchesLinearSum() throws Exception {
+        Random random = new Random(1);
+        SegmentList list = new SegmentList();
+        float[] values = new float[64];
+        int count = 0;
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(3);
+            if (op == 0 || count == 0) {
+                float value = random.nextInt(20);
+                list.add(value, step);
+                values[count++] = value;
+            } else if (op == 1) {
+                int index = random.nextInt(count);
+                float value = random.nextInt(20);
+                list.set(index, value);
+                values[index] = value;
+            } else {
+                int index = random.nextInt(count);
+                list.remove(index);
+                System.arraycopy(values, index + 1, values, index, count - index - 1);
+                count--;
+            }
+            if (count == values.length) {
+                list.remove(--count);
+            }
+
+            assertEquals(count, list.size());
+            float sum = 0;
+            for (int i = 0; i <= count; i++) {
+                assertEquals(sum, list.prefix(i), DELTA);
+                if (i < count) {
+                    sum += values[i];
+                }
+            }
+        }
+    }
+
+    @Test
+    public void indexOf_findsCoveringSegment() throws Exception {
+        SegmentList list = new SegmentList();
+        list.setAll(new float[]{90, 0, 45, 180}, new int[]{1, 2, 3, 4}, 4);
+        assertEquals(0, list.indexOf(0));
+        assertEquals(0, list.indexOf(89.5f));
+        assertEquals(2, list.indexOf(90));
+        assertEquals(3, list.indexOf(135));
+        assertEquals(3, list.indexOf(314));
+        assertEquals(-1, list.indexOf(315));
+        assertEquals(-1, list.indexOf(-1));
+    }
+}
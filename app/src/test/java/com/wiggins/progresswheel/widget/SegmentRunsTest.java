@@ -0,0 +1,152 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 多段进度合并成圆弧的单元测试
+ */
+public class SegmentRunsTest {
+
+    private static final int RED = 0xFFFF0000;
+    private static final int BLUE = 0xFF0000FF;
+    // 半径150像素时一个像素对应的角度，约0.38度
+    private static final float MIN_SWEEP = (float) (180 / (Math.PI * 150));
+
+    @Test
+    public void build_boundsRunsForAlternatingSubPixelSegments() throws Exception {
+        // 5000个0.072度的段，红蓝交替
+        SegmentList segments = segments(5000, 1);
+        SegmentRuns runs = new SegmentRuns();
+        runs.build(segments, -90, MIN_SWEEP);
+
+        int maxRuns = (int) Math.ceil(360 / MIN_SWEEP) + 1;
+        assertTrue(runs.size() > maxRuns / 2);
+        assertTrue(runs.size() <= maxRuns);
+        assertContiguous(runs, 360);
+        for (int i = 0; i < runs.size(); i++) {
+            assertTrue(runs.colorAt(i) == RED || runs.colorAt(i) == BLUE);
+            if (i < runs.size() - 1) {
+                assertTrue(runs.sweepAt(i) >= MIN_SWEEP);
+            }
+        }
+    }
+
+    @Test
+    public void build_keepsColorsOfSubPixelBlocks() throws Exception {
+        // 每20个段换一次颜色，每种颜色的一块约1.44度，超过一个像素
+        SegmentList segments = segments(5000, 20);
+        SegmentRuns runs = new SegmentRuns();
+        runs.build(segments, -90, MIN_SWEEP);
+
+        assertTrue(runs.size() <= (int) Math.ceil(360 / MIN_SWEEP) + 1);
+        assertContiguous(runs, 360);
+        int red = 0;
+        int blue = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            float middle = runs.startAt(i) + 90 + runs.sweepAt(i) / 2;
+            int block = (int) (middle / (20 * 360f / 5000));
+            // 圆弧中点所在块的颜色占多数
+            if (runs.sweepAt(i) >= MIN_SWEEP) {
+                assertEquals(block % 2 == 0 ? RED : BLUE, runs.colorAt(i));
+            }
+            if (runs.colorAt(i) == RED) {
+                red++;
+            } else {
+                blue++;
+            }
+        }
+        assertTrue(red > 100);
+        assertTrue(blue > 100);
+    }
+
+    @Test
+    public void build_mergesSameColorAndKeepsWideSegments() throws Exception {
+        SegmentList segments = new SegmentList();
+        segments.add(10, RED);
+        segments.add(20, RED);
+        segments.add(30, BLUE);
+        segments.add(0.1f, RED);
+        segments.add(40, BLUE);
+        SegmentRuns runs = new SegmentRuns();
+        runs.build(segments, -90, MIN_SWEEP);
+
+        assertEquals(3, runs.size());
+        assertEquals(-90, runs.startAt(0), 0.001f);
+        assertEquals(30, runs.sweepAt(0), 0.001f);
+        assertEquals(RED, runs.colorAt(0));
+        assertEquals(30, runs.sweepAt(1), 0.001f);
+        assertEquals(BLUE, runs.colorAt(1));
+        // 不足一个像素的红色段与后面的蓝色段合并，颜色取占比大的蓝色
+        assertEquals(40.1f, runs.sweepAt(2), 0.001f);
+        assertEquals(BLUE, runs.colorAt(2));
+    }
+
+    @Test
+    public void build_drawCallsStayBoundedAsSegmentsGrow() throws Exception {
+        // 绘制调用数只取决于圆周的像素数，与段数无关
+        int maxRuns = (int) Math.ceil(360 / MIN_SWEEP) + 1;
+        SegmentRuns runs = new SegmentRuns();
+        for (int count = 1000; count <= 20000; count *= 2) {
+            runs.build(segments(count, 1), -90, MIN_SWEEP);
+            assertTrue(runs.size() <= maxRuns);
+            assertContiguous(runs, 360);
+        }
+    }
+
+    @Test
+    public void build_allocatesNothingOnceSized() throws Exception {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        SegmentList alternating = segments(5000, 1);
+        SegmentList blocks = segments(5000, 20);
+        SegmentRuns runs = new SegmentRuns();
+        // 预热，数组扩容到足够大，方法已编译
+        int total = rebuild(runs, alternating, blocks, 1000);
+        bean.getThreadAllocatedBytes(threadId);
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+        total += rebuild(runs, alternating, blocks, 1000);
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        assertTrue(total > 0);
+        assertEquals(0, after - before);
+    }
+
+    /**
+     * 像数据每帧变化一样交替重新生成圆弧
+     */
+    private static int rebuild(SegmentRuns runs, SegmentList alternating, SegmentList blocks, int frames) {
+        int total = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            runs.build(frame % 2 == 0 ? alternating : blocks, -90, MIN_SWEEP);
+            total += runs.size();
+        }
+        return total;
+    }
+
+    private static SegmentList segments(int count, int blockSize) {
+        float[] values = new float[count];
+        int[] colors = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = 360f / count;
+            colors[i] = (i / blockSize) % 2 == 0 ? RED : BLUE;
+        }
+        SegmentList segments = new SegmentList();
+        segments.setAll(values, colors, count);
+        return segments;
+    }
+
+    private static void assertContiguous(SegmentRuns runs, float total) {
+        float end = -90;
+        for (int i = 0; i < runs.size(); i++) {
+            assertEquals(end, runs.startAt(i), 0.01f);
+            end = runs.startAt(i) + runs.sweepAt(i);
+        }
+        assertEquals(-90 + total, end, 0.01f);
+    }
+}
@@ -0,0 +1,88 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 多段进度过渡动画的单元测试
+ */
+public class SegmentTransitionTest {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void apply_interpolatesSweepAndColor() throws Exception {
+        SegmentList from = new SegmentList();
+        from.setAll(new float[]{100, 200}, new int[]{0xFF000000, 0xFF0000FF}, 2);
+        SegmentList to = new SegmentList();
+        to.setAll(new float[]{200, 100}, new int[]{0xFFFFFFFF, 0xFF0000FF}, 2);
+
+        SegmentTransition transition = new SegmentTransition();
+        transition.start(from);
+        transition.apply(to, 0.5f);
+        SegmentList shown = transition.shown();
+        assertEquals(2, shown.size());
+        assertEquals(150, shown.valueAt(0), DELTA);
+        assertEquals(150, shown.valueAt(1), DELTA);
+        assertEquals(0xFF7F7F7F, shown.colorAt(0));
+        assertEquals(0xFF0000FF, shown.colorAt(1));
+        assertEquals(150, shown.prefix(1), DELTA);
+    }
+
+    @Test
+    public void apply_growsAddedAndShrinksRemovedSegments() throws Exception {
+        SegmentList from = new SegmentList();
+        from.setAll(new float[]{90, 90, 90}, new int[]{1, 2, 3}, 3);
+        SegmentList to = new SegmentList();
+        to.setAll(new float[]{90}, new int[]{1}, 1);
+
+        SegmentTransition transition = new SegmentTransition();
+        transition.start(from);
+        transition.apply(to, 0.25f);
+        assertEquals(3, transition.shown().size());
+        assertEquals(67.5f, transition.shown().valueAt(2), DELTA);
+        assertEquals(3, transition.shown().colorAt(2));
+
+        // 从正在显示的样子反向过渡回去
+        transition.start(transition.shown());
+        transition.apply(from, 0);
+        assertEquals(67.5f, transition.shown().valueAt(1), DELTA);
+        transition.apply(from, 1);
+        assertEquals(90, transition.shown().valueAt(1), DELTA);
+        assertEquals(270, transition.shown().total(), DELTA);
+    }
+
+    @Test
+    public void apply_allocatesNothingPerFrame() throws Exception {
+        int count = 500;
+        float[] values = new float[count];
+        int[] colors = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = 360f / count;
+            colors[i] = 0xFF000000 | (i * 0x010203);
+        }
+        SegmentList from = new SegmentList();
+        SegmentList to = new SegmentList();
+        to.setAll(values, colors, count);
+
+        SegmentTransition transition = new SegmentTransition();
+        transition.start(from);
+        // 预热，数组只在第一帧分配
+        transition.apply(to, 0);
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        bean.getThreadAllocatedBytes(threadId);
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int frame = 1; frame <= 60; frame++) {
+            transition.apply(to, frame / 60f);
+        }
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        assertEquals(360, transition.shown().total(), 0.01f);
+        assertEquals(0, after - before);
+    }
+}
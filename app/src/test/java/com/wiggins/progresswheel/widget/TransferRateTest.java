@@ -0,0 +1,65 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 传输速度估算和格式化的单元测试
+ */
+public class TransferRateTest {
+
+    private static final long SECOND = 1000000000L;
+
+    @Test
+    public void sample_convergesToSteadyRate() throws Exception {
+        TransferRate rate = new TransferRate();
+        long bytes = 0;
+        long time = 0;
+        rate.sample(bytes, time);
+        assertFalse(rate.hasRate());
+        // 60帧/秒，每秒5 GB，累计值超过int范围
+        for (int frame = 0; frame < 600; frame++) {
+            bytes += 5L * 1024 * 1024 * 1024 / 60;
+            time += SECOND / 60;
+            rate.sample(bytes, time);
+        }
+        assertTrue(rate.hasRate());
+        assertEquals(5.0 * 1024 * 1024 * 1024, rate.getRate(), 1024 * 1024);
+        assertEquals(2, rate.etaSeconds(10L * 1024 * 1024 * 1024));
+    }
+
+    @Test
+    public void sample_resetsWhenProgressGoesBack() throws Exception {
+        TransferRate rate = new TransferRate();
+        rate.sample(1000, 0);
+        rate.sample(2000, SECOND);
+        assertTrue(rate.hasRate());
+        rate.sample(0, 2 * SECOND);
+        assertFalse(rate.hasRate());
+        assertEquals(-1, rate.etaSeconds(100));
+        assertEquals(0, rate.etaSeconds(0));
+    }
+
+    @Test
+    public void format_writesRateAndEta() throws Exception {
+        char[] buffer = new char[32];
+        assertEquals("0.0 B/s", new String(buffer, 0, TransferRate.formatRate(0, buffer, 0)));
+        assertEquals("512 B/s", new String(buffer, 0, TransferRate.formatRate(512, buffer, 0)));
+        assertEquals("1.5 KB/s", new String(buffer, 0, TransferRate.formatRate(1536, buffer, 0)));
+        assertEquals("1.0 MB/s", new String(buffer, 0, TransferRate.formatRate(1000 * 1024, buffer, 0)));
+        assertEquals("40 GB/s", new String(buffer, 0, TransferRate.formatRate(40.0 * 1024 * 1024 * 1024, buffer, 0)));
+
+        assertEquals("--:--", new String(buffer, 0, TransferRate.formatEta(-1, buffer, 0)));
+        assertEquals("0:07", new String(buffer, 0, TransferRate.formatEta(7, buffer, 0)));
+        assertEquals("3:07", new String(buffer, 0, TransferRate.formatEta(187, buffer, 0)));
+        assertEquals("1:00:05", new String(buffer, 0, TransferRate.formatEta(3605, buffer, 0)));
+
+        TransferRate rate = new TransferRate();
+        rate.sample(0, 0);
+        rate.sample(1024 * 1024, SECOND);
+        assertEquals("1.0 MB/s 0:03", new String(buffer, 0, rate.format(3 * 1024 * 1024, buffer)));
+    }
+}
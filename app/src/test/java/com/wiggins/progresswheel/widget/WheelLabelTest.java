@@ -0,0 +1,89 @@
+package com.wiggins.progresswheel.widget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ProgressWheel中间文字的单元测试
+ */
+public class WheelLabelTest {
+
+    @Test
+    public void setPercent_reportsChangesOnly() throws Exception {
+        WheelLabel label = new WheelLabel();
+        PercentLabels labels = new PercentLabels();
+        assertTrue(label.setPercent(42, labels));
+        assertFalse(label.setPercent(42, labels));
+        assertEquals("42%", label.text);
+        assertEquals(1, label.lineCount);
+        assertEquals("42%", label.lines[0]);
+    }
+
+    @Test
+    public void setText_splitsLinesLikeStringSplit() throws Exception {
+        WheelLabel label = new WheelLabel();
+        label.setText("a\n\nb\n\n");
+        assertEquals(-1, label.percent);
+        assertEquals(3, label.lineCount);
+        assertEquals("a", label.lines[0]);
+        assertEquals("", label.lines[1]);
+        assertEquals("b", label.lines[2]);
+        assertNull(label.lines[3]);
+
+        label.setText("");
+        assertEquals(1, label.lineCount);
+        assertEquals("", label.lines[0]);
+    }
+
+    @Test
+    public void setPercent_afterText_showsPercentAgain() throws Exception {
+        WheelLabel label = new WheelLabel();
+        PercentLabels labels = new PercentLabels();
+        label.setPercent(10, labels);
+        label.setText("x\ny");
+        assertTrue(label.setPercent(10, labels));
+        assertEquals(1, label.lineCount);
+        assertEquals("10%", label.lines[0]);
+    }
+
+    /**
+     * 按ProgressWheel每帧的顺序：由进度算百分比、更新文字和偏移量、取最宽一行计算重绘区域
+     */
+    @Test
+    public void frameUpdate_allocatesNothing() throws Exception {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        WheelLabel label = new WheelLabel();
+        PercentLabels labels = new PercentLabels();
+        // 预热，保证类已初始化、方法已编译
+        float offsets = runFrames(label, labels, 10000);
+        bean.getThreadAllocatedBytes(threadId);
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+        offsets += runFrames(label, labels, 10000);
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        assertTrue(offsets >= 0);
+        assertEquals(100, label.percent);
+        assertEquals(0, after - before);
+    }
+
+    private static float runFrames(WheelLabel label, PercentLabels labels, int frames) {
+        float offsets = 0;
+        int changes = 0;
+        for (int frame = 0; frame <= frames; frame++) {
+            float progress = 360f * frame / frames;
+            if (label.setPercent(WheelLabel.percentOf(progress), labels)) {
+                changes++;
+            }
+            offsets += label.maxOffset();
+        }
+        return offsets + changes;
+    }
+}
@@ -0,0 +1,137 @@
+package com.wiggins.progresswheel.widget.loading;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * LoadingView弹跳状态机的单元测试
+ */
+public class BounceMotionTest {
+
+    private static final float DELTA = 0.001f;
+    private static final long DURATION = 500;
+    private static final long MILLI = 1000000;
+    private static final long FRAME = 16 * MILLI;
+    private static final float DISTANCE = 100;
+    private static final float FACTOR = 1.2f;
+
+    @Test
+    public void down_fallsToDistanceAndShrinksIndication() throws Exception {
+        BounceMotion motion = new BounceMotion(DURATION);
+        motion.start(BounceMotion.PHASE_DOWN, 0);
+        assertFalse(motion.update(1000 * MILLI, DISTANCE, FACTOR));
+        assertEquals(0, motion.translationY, DELTA);
+        assertEquals(1, motion.indicationScaleX, DELTA);
+
+        assertFalse(motion.update(1250 * MILLI, DISTANCE, FACTOR));
+        assertEquals(DISTANCE * (float) Math.pow(0.5, 2 * FACTOR), motion.translationY, DELTA);
+        assertEquals(0.6f, motion.indicationScaleX, DELTA);
+
+        assertTrue(motion.update(1500 * MILLI, DISTANCE, FACTOR));
+        assertEquals(DISTANCE, motion.translationY, DELTA);
+        assertEquals(0.2f, motion.indicationScaleX, DELTA);
+        assertEquals(0, motion.rotation, DELTA);
+    }
+
+    @Test
+    public void up_risesAndRotatesToTarget() throws Exception {
+        BounceMotion motion = new BounceMotion(DURATION);
+        motion.start(BounceMotion.PHASE_UP, -120);
+        motion.update(0, DISTANCE, FACTOR);
+        assertEquals(DISTANCE, motion.translationY, DELTA);
+        assertEquals(0, motion.rotation, DELTA);
+
+        assertTrue(motion.update(DURATION * MILLI, DISTANCE, FACTOR));
+        assertEquals(0, motion.translationY, DELTA);
+        assertEquals(-120, motion.rotation, DELTA);
+        assertEquals(1, motion.indicationScaleX, DELTA);
+
+        // 下落时保持上抛结束时的角度
+        motion.start(BounceMotion.PHASE_DOWN, 180);
+        motion.update(DURATION * MILLI, DISTANCE, FACTOR);
+        assertEquals(-120, motion.rotation, DELTA);
+    }
+
+    @Test
+    public void resume_continuesFromPausedFraction() throws Exception {
+        BounceMotion motion = new BounceMotion(DURATION);
+        motion.start(BounceMotion.PHASE_DOWN, 0);
+        motion.update(0, DISTANCE, FACTOR);
+        motion.update(200 * MILLI, DISTANCE, FACTOR);
+        assertEquals(0.4f, motion.getFraction(), DELTA);
+
+        // 暂停了10秒
+        motion.resume();
+        motion.update(10000 * MILLI, DISTANCE, FACTOR);
+        assertEquals(0.4f, motion.getFraction(), DELTA);
+        assertFalse(motion.update(10200 * MILLI, DISTANCE, FACTOR));
+        assertEquals(0.8f, motion.getFraction(), DELTA);
+    }
+
+    @Test
+    public void idle_doesNothing() throws Exception {
+        BounceMotion motion = new BounceMotion(DURATION);
+        assertFalse(motion.update(0, DISTANCE, FACTOR));
+        assertEquals(0, motion.translationY, DELTA);
+        assertEquals(BounceMotion.PHASE_IDLE, motion.getPhase());
+    }
+
+    @Test
+    public void interpolators_matchFrameworkFormulas() throws Exception {
+        assertEquals(0.25f, BounceMotion.accelerate(0.5f, 1), DELTA);
+        assertEquals(0.75f, BounceMotion.decelerate(0.5f, 1), DELTA);
+        assertEquals(0, BounceMotion.accelerateDecelerate(0), DELTA);
+        assertEquals(0.5f, BounceMotion.accelerateDecelerate(0.5f), DELTA);
+        assertEquals(1, BounceMotion.accelerateDecelerate(1), DELTA);
+    }
+
+    @Test
+    public void thousandBounces_allocateNothing() throws Exception {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        BounceMotion motion = new BounceMotion(DURATION);
+        // 预热，保证类已初始化、方法已编译
+        long time = bounce(motion, 0, 1000);
+        bean.getThreadAllocatedBytes(threadId);
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+        long end = bounce(motion, time, 1000);
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        assertEquals(0, after - before);
+        // 每次弹跳一次下落一次上抛，每个阶段的第一帧记录开始时间，之后按帧时间推进到结束
+        long frames = 1 + (DURATION * MILLI + FRAME - 1) / FRAME;
+        assertEquals(time + 1000 * 2 * frames * FRAME, end);
+        assertEquals(BounceMotion.PHASE_DOWN, motion.getPhase());
+    }
+
+    /**
+     * 与LoadingView的帧回调一样驱动状态机：下落结束时上抛，上抛结束时再次下落，旋转角度按形状交替
+     *
+     * @return 最后一帧的时间
+     */
+    private static long bounce(BounceMotion motion, long time, int bounces) {
+        motion.start(BounceMotion.PHASE_DOWN, 0);
+        int shape = 0;
+        int completed = 0;
+        while (completed < bounces) {
+            time += FRAME;
+            if (!motion.update(time, DISTANCE, FACTOR)) {
+                continue;
+            }
+            if (motion.getPhase() == BounceMotion.PHASE_DOWN) {
+                shape = (shape + 1) % 3;
+                motion.start(BounceMotion.PHASE_UP, shape == 2 ? -120 : 180);
+            } else {
+                motion.start(BounceMotion.PHASE_DOWN, 0);
+                completed++;
+            }
+        }
+        return time;
+    }
+}
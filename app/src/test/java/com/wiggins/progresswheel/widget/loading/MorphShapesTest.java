@@ -0,0 +1,75 @@
+package com.wiggins.progresswheel.widget.loading;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 变形形状展开成顶点环的单元测试
+ */
+public class MorphShapesTest {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void polygon_keepsEveryCorner() throws Exception {
+        float[] vertices = new float[2 * 72];
+        MorphShapes.TRIANGLE.flatten(vertices, 72, 100, 100);
+        assertTrue(containsPoint(vertices, 50, 0));
+        assertTrue(containsPoint(vertices, 100, 86.60254f));
+        assertTrue(containsPoint(vertices, 0, 86.60254f));
+        // 从顶部中间开始
+        assertEquals(50, vertices[0], DELTA);
+        assertEquals(0, vertices[1], DELTA);
+    }
+
+    @Test
+    public void polygon_distributesVerticesByEdgeLength() throws Exception {
+        float[] vertices = new float[2 * 8];
+        MorphShapes.polygon(0, 0, 1, 0, 1, 1, 0, 1).flatten(vertices, 8, 10, 10);
+        float[] expected = {0, 0, 5, 0, 10, 0, 10, 5, 10, 10, 5, 10, 0, 10, 0, 5};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], vertices[i], DELTA);
+        }
+    }
+
+    @Test
+    public void polygon_fillsAllVerticesWhenCountEqualsCorners() throws Exception {
+        float[] vertices = new float[2 * 5];
+        MorphShapes.RECT.flatten(vertices, 5, 20, 10);
+        float[] expected = {10, 0, 20, 0, 20, 10, 0, 10, 0, 0};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], vertices[i], DELTA);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void polygon_rejectsTooFewVertices() throws Exception {
+        MorphShapes.RECT.flatten(new float[8], 4, 10, 10);
+    }
+
+    @Test
+    public void circle_startsAtTopAndStaysOnRadius() throws Exception {
+        float[] vertices = new float[2 * 72];
+        MorphShapes.CIRCLE.flatten(vertices, 72, 40, 40);
+        assertEquals(20, vertices[0], DELTA);
+        assertEquals(0, vertices[1], DELTA);
+        // 顺时针：第二个点在起点右侧
+        assertTrue(vertices[2] > vertices[0]);
+        for (int i = 0; i < 72; i++) {
+            float dx = vertices[2 * i] - 20;
+            float dy = vertices[2 * i + 1] - 20;
+            assertEquals(20, Math.sqrt(dx * dx + dy * dy), DELTA);
+        }
+    }
+
+    private static boolean containsPoint(float[] vertices, float x, float y) {
+        for (int i = 0; i < vertices.length; i += 2) {
+            if (Math.abs(vertices[i] - x) < DELTA && Math.abs(vertices[i + 1] - y) < DELTA) {
+                return true;
+            }
+        }
+        return false;
+    }
+}